@@ -0,0 +1,36 @@
+package hello.springtx.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * 벤치마크용 스프링 컨텍스트. application.properties 의 트랜잭션/SQL 로그가 측정값을 왜곡하지 않도록 끈다.
+ */
+final class BenchmarkContext {
+
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.hibernate.resource.transaction=WARN",
+            "--logging.level.org.hibernate.SQL=WARN"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(Class<?>... sources) {
+        return start(new String[0], sources);
+    }
+
+    static ConfigurableApplicationContext start(String[] args, Class<?>... sources) {
+        String[] allArgs = Arrays.copyOf(QUIET_LOGGING, QUIET_LOGGING.length + args.length);
+        System.arraycopy(args, 0, allArgs, QUIET_LOGGING.length, args.length);
+        return new SpringApplicationBuilder(sources)
+                .logStartupInfo(false)
+                .run(allArgs);
+    }
+}
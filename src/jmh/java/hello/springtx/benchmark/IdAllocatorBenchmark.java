@@ -0,0 +1,58 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.id.StripedIdAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 여러 스레드가 동시에 id 를 할당할 때 비교.
+ * synchronizedPooled : hibernate pooled 옵티마이저처럼 id 하나마다 generator 전체 락
+ * striped            : StripedIdAllocator (블록을 다 썼을 때만 스트라이프 락)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class IdAllocatorBenchmark {
+
+    private static final int BLOCK_SIZE = 50;
+
+    private final AtomicLong sequence = new AtomicLong(1);
+    private final LongSupplier blockSource = () -> sequence.getAndAdd(BLOCK_SIZE);
+
+    private final StripedIdAllocator striped = new StripedIdAllocator(8, BLOCK_SIZE);
+    private final SynchronizedPooledAllocator synchronizedPooled = new SynchronizedPooledAllocator();
+
+    @Benchmark
+    public long striped() {
+        return striped.next(blockSource);
+    }
+
+    @Benchmark
+    public long synchronizedPooled() {
+        return synchronizedPooled.next(blockSource);
+    }
+
+    private static class SynchronizedPooledAllocator {
+
+        private long next;
+        private long end;
+
+        synchronized long next(LongSupplier blockSource) {
+            if (next >= end) {
+                next = blockSource.getAsLong();
+                end = next + BLOCK_SIZE;
+            }
+            return next++;
+        }
+    }
+}
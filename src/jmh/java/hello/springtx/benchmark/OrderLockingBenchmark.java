@@ -0,0 +1,126 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 8개 스레드가 결제 상태를 동시에 바꿀 때 낙관적 락(@Version)과 비관적 락(SELECT ... FOR UPDATE) 비교.
+ * contention=same     : 모든 스레드가 같은 주문 하나를 바꾼다.
+ * contention=disjoint : 스레드마다 자기 주문만 바꾼다. (충돌 없음, 일반적인 경우)
+ * 한 번의 측정 = 커밋된 상태 변경 한 건. 두 방식 모두 재시도하지 않는 메서드를 호출하고(@RetryableTx 의 backoff, 재시도 예산 제외)
+ * 충돌하거나 락 대기 시간이 지나서 실패하면 기다리지 않고 바로 다시 호출한다.
+ * 보조 지표 conflicts: 낙관적 락 버전 충돌 횟수, retries: 다시 호출한 횟수(비관적 락의 락 대기 시간 초과 포함)
+ * 빠르게 실패한 호출이 처리량과 SampleTime 백분위(p99)에 섞이지 않으므로 두 방식의 결과를 그대로 비교할 수 있다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class OrderLockingBenchmark {
+
+    @Param({"same", "disjoint"})
+    public String contention;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long sharedOrderId;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws NotEnoughMoneyException {
+        context = BenchmarkContext.start(SpringtxApplication.class);
+        orderService = context.getBean(OrderService.class);
+        sharedOrderId = newOrder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long newOrder() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+        return order.getId();
+    }
+
+    @State(Scope.Thread)
+    public static class Target {
+
+        Long orderId;
+
+        @Setup(Level.Trial)
+        public void setUp(OrderLockingBenchmark benchmark) throws NotEnoughMoneyException {
+            orderId = benchmark.contention.equals("same") ? benchmark.sharedOrderId : benchmark.newOrder();
+        }
+    }
+
+    //스레드별 충돌/재시도 횟수. 결과에 optimistic:conflicts, optimistic:retries 처럼 별도 지표로 나온다.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+
+        public long conflicts;
+        public long retries;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            conflicts = 0;
+            retries = 0;
+        }
+    }
+
+    @Benchmark
+    public void optimistic(Target target, Failures failures) {
+        while (true) {
+            try {
+                orderService.changePayStatusWithoutRetry(target.orderId, nextPayStatus());
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (e instanceof OptimisticLockingFailureException) {
+                    failures.conflicts++;
+                }
+                failures.retries++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void pessimistic(Target target, Failures failures) {
+        while (true) {
+            try {
+                orderService.changePayStatusWithLock(target.orderId, nextPayStatus());
+                return;
+            } catch (ConcurrencyFailureException e) {
+                failures.retries++;
+            }
+        }
+    }
+
+    //매번 다른 값이어야 dirty checking 이 UPDATE 를 만든다.
+    private String nextPayStatus() {
+        return "완료#" + sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,58 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 외부 트랜잭션 안에서 로그 한 건을 저장하는 비용 비교.
+ * required    : LogRepository.saveAll 이 외부 트랜잭션에 참여해서 insert, 외부 트랜잭션과 함께 커밋
+ * requiresNew : LogRepository.save (REQUIRES_NEW) 경로. 외부 트랜잭션 보류 + 새 커넥션 + insert + 물리 커밋 + 재개
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropagationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LogRepository logRepository;
+    private TransactionTemplate outer;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(SpringtxApplication.class);
+        logRepository = context.getBean(LogRepository.class);
+
+        PlatformTransactionManager txManager = context.getBean(PlatformTransactionManager.class);
+        outer = new TransactionTemplate(txManager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void required() {
+        outer.executeWithoutResult(status -> logRepository.saveAll(List.of(new Log("benchmark"))));
+    }
+
+    @Benchmark
+    public void requiresNew() {
+        outer.executeWithoutResult(status -> logRepository.save(new Log("benchmark")));
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.propagation.LogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * readOnly = true 트랜잭션(flush 생략, 커넥션 readOnly)과 읽기/쓰기 트랜잭션 비교. (TxLevelTest.LevelService)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlyBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LogRepository logRepository;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(SpringtxApplication.class);
+        logRepository = context.getBean(LogRepository.class);
+
+        PlatformTransactionManager txManager = context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(txManager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean readOnly() {
+        return readOnly.execute(status -> logRepository.exists("benchmark"));
+    }
+
+    @Benchmark
+    public Boolean readWrite() {
+        return readWrite.execute(status -> logRepository.exists("benchmark"));
+    }
+}
@@ -0,0 +1,62 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 JDBC 작업을 DataSourceTransactionManager(BasicTxTest 설정)와 JpaTransactionManager 로 감쌌을 때 비교.
+ * 애플리케이션의 트랜잭션 매니저 빈은 메트릭/JFR/워치독 데코레이터로 감싸져 있으므로 쓰지 않고 둘 다 직접 만든다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionManagerBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate dataSourceTx;
+    private TransactionTemplate jpaTx;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(SpringtxApplication.class);
+        DataSource dataSource = context.getBean(DataSource.class);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        dataSourceTx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JpaTransactionManager jpaTransactionManager = new JpaTransactionManager(context.getBean(EntityManagerFactory.class));
+        jpaTransactionManager.afterPropertiesSet(); //EntityManagerFactory 의 DataSource 를 잡아 JDBC 작업도 같은 트랜잭션에 참여시킨다.
+        jpaTx = new TransactionTemplate(jpaTransactionManager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer dataSourceTransactionManager() {
+        return dataSourceTx.execute(status -> jdbcTemplate.queryForObject("select 1", Integer.class));
+    }
+
+    @Benchmark
+    public Integer jpaTransactionManager() {
+        return jpaTx.execute(status -> jdbcTemplate.queryForObject("select 1", Integer.class));
+    }
+}
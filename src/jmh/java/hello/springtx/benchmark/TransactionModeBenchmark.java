@@ -0,0 +1,92 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.propagation.LogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 프록시 호출과 AspectJ 위빙 호출 비교.
+ * ./gradlew jmh -Paspectj -PjmhIncludes=TransactionModeBenchmark
+ * supports : 물리 트랜잭션 없이 AOP 진입/종료 비용만 (SUPPORTS 는 기존 트랜잭션이 없으면 빈 트랜잭션)
+ * exists   : 읽기 전용 트랜잭션 + 쿼리 한 건
+ * 위빙된 빌드의 proxy 측정값에는 트랜잭션 매니저가 연결되지 않아 그냥 통과하는 위빙 advice 비용이 조금 더해진다.
+ * aspectj 모드에서는 TxService 에 적용되는 스프링 AOP 가 없어서(TransactionOutcomeAspect 는 프록시 모드 전용) 프록시 없이 호출된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionModeBenchmark {
+
+    @Param({"proxy", "aspectj"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TxService txService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(new String[]{"--springtx.transaction.mode=" + mode},
+                SpringtxApplication.class, TxServiceConfig.class);
+        txService = context.getBean(TxService.class);
+        if (mode.equals("aspectj") && AopUtils.isAopProxy(txService)) {
+            throw new IllegalStateException("aspectj 모드인데 TxService 가 프록시입니다. 프록시 모드 전용 애스펙트를 확인하세요.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean supports() {
+        return txService.supports();
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return txService.exists("benchmark");
+    }
+
+    //컴포넌트 스캔 대상이 되지 않도록 @Configuration 없이 소스로 직접 등록한다.
+    static class TxServiceConfig {
+        @Bean
+        TxService txService(LogRepository logRepository) {
+            return new TxService(logRepository);
+        }
+    }
+
+    static class TxService {
+
+        private final LogRepository logRepository;
+
+        TxService(LogRepository logRepository) {
+            this.logRepository = logRepository;
+        }
+
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public boolean supports() {
+            return true;
+        }
+
+        @Transactional(readOnly = true)
+        public boolean exists(String message) {
+            return logRepository.exists(message);
+        }
+    }
+}
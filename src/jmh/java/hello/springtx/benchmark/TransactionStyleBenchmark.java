@@ -0,0 +1,78 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.propagation.LogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프록시 기반 @Transactional 과 프로그래밍 방식 TransactionTemplate 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionStyleBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LogRepository logRepository;
+    private TxService txService;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(SpringtxApplication.class, TxServiceConfig.class);
+        logRepository = context.getBean(LogRepository.class);
+        txService = context.getBean(TxService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean proxy() {
+        return txService.exists("benchmark");
+    }
+
+    @Benchmark
+    public Boolean template() {
+        return transactionTemplate.execute(status -> logRepository.exists("benchmark"));
+    }
+
+    //컴포넌트 스캔 대상이 되지 않도록 @Configuration 없이 소스로 직접 등록한다.
+    static class TxServiceConfig {
+        @Bean
+        TxService txService(LogRepository logRepository) {
+            return new TxService(logRepository);
+        }
+    }
+
+    static class TxService {
+
+        private final LogRepository logRepository;
+
+        TxService(LogRepository logRepository) {
+            this.logRepository = logRepository;
+        }
+
+        @Transactional
+        public boolean exists(String message) {
+            return logRepository.exists(message);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package hello.springtx.loadtest;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 임베디드 H2 에 여러 워커가 동시에 요청을 보내는 부하 테스트. (./gradlew loadTest)
+ * 시나리오마다 워밍업 후 정해진 시간 동안 실행하고 처리량, p50/p99/p999, 롤백 비율, 커넥션 풀 대기 시간을 출력한다.
+ * 설정: --loadtest.workers, warmup-seconds, duration-seconds, scenarios, exception-ratio, not-enough-money-ratio
+ */
+public class LoadTestRunner {
+
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.hibernate.resource.transaction=WARN",
+            "--logging.level.org.hibernate.SQL=WARN"
+    };
+
+    private final Scenario.Services services;
+    private final MeterRegistry meterRegistry;
+    private final int workers;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final double exceptionRatio;
+    private final double notEnoughMoneyRatio;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadTestRunner(ConfigurableApplicationContext context) {
+        Environment env = context.getEnvironment();
+        this.services = new Scenario.Services(context.getBean(MemberService.class), context.getBean(OrderService.class));
+        this.meterRegistry = context.getBean(MeterRegistry.class);
+        this.workers = env.getProperty("loadtest.workers", Integer.class, 16);
+        this.warmupSeconds = env.getProperty("loadtest.warmup-seconds", Integer.class, 5);
+        this.durationSeconds = env.getProperty("loadtest.duration-seconds", Integer.class, 20);
+        for (String key : env.getProperty("loadtest.scenarios", "joinV1,joinV2,joinV3,order").split(",")) {
+            scenarios.add(Scenario.of(key));
+        }
+        this.exceptionRatio = env.getProperty("loadtest.exception-ratio", Double.class, 0.05);
+        this.notEnoughMoneyRatio = env.getProperty("loadtest.not-enough-money-ratio", Double.class, 0.1);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] allArgs = Arrays.copyOf(QUIET_LOGGING, QUIET_LOGGING.length + args.length);
+        System.arraycopy(args, 0, allArgs, QUIET_LOGGING.length, args.length);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .logStartupInfo(false)
+                .run(allArgs)) {
+            new LoadTestRunner(context).run();
+        }
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("workers=%d warmup=%ds duration=%ds exception-ratio=%.2f not-enough-money-ratio=%.2f%n",
+                workers, warmupSeconds, durationSeconds, exceptionRatio, notEnoughMoneyRatio);
+        for (Scenario scenario : scenarios) {
+            runPhase(scenario, warmupSeconds);
+
+            MetricsSnapshot before = MetricsSnapshot.take(meterRegistry);
+            long start = System.nanoTime();
+            List<LatencyRecorder> recorders = runPhase(scenario, durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            MetricsSnapshot after = MetricsSnapshot.take(meterRegistry);
+
+            report(scenario, recorders, elapsedSeconds, before, after);
+        }
+    }
+
+    private List<LatencyRecorder> runPhase(Scenario scenario, int seconds) throws InterruptedException {
+        List<LatencyRecorder> recorders = new ArrayList<>(workers);
+        if (seconds <= 0) {
+            return recorders;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CountDownLatch startGate = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        for (int i = 0; i < workers; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            executor.execute(() -> {
+                try {
+                    startGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    execute(scenario, recorder);
+                }
+            });
+        }
+        startGate.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        return recorders;
+    }
+
+    private void execute(Scenario scenario, LatencyRecorder recorder) {
+        Scenario.Input input = nextInput();
+        String id = scenario.key() + "-" + sequence.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            scenario.execute(services, input, id);
+            recorder.success++;
+        } catch (NotEnoughMoneyException e) {
+            recorder.businessException++;
+        } catch (RuntimeException e) {
+            recorder.failure++;
+        } finally {
+            recorder.record(System.nanoTime() - start);
+        }
+    }
+
+    private Scenario.Input nextInput() {
+        double random = ThreadLocalRandom.current().nextDouble();
+        if (random < exceptionRatio) {
+            return Scenario.Input.EXCEPTION;
+        }
+        if (random < exceptionRatio + notEnoughMoneyRatio) {
+            return Scenario.Input.NOT_ENOUGH_MONEY;
+        }
+        return Scenario.Input.NORMAL;
+    }
+
+    private void report(Scenario scenario, List<LatencyRecorder> recorders, double elapsedSeconds,
+                        MetricsSnapshot before, MetricsSnapshot after) {
+        long[] latencies = LatencyRecorder.merge(recorders);
+        long success = 0;
+        long business = 0;
+        long failure = 0;
+        for (LatencyRecorder recorder : recorders) {
+            success += recorder.success;
+            business += recorder.businessException;
+            failure += recorder.failure;
+        }
+
+        long physical = after.physicalTransactions - before.physicalTransactions;
+        long rolledBack = after.rolledBackTransactions - before.rolledBackTransactions;
+
+        System.out.printf("%n== %s ==%n", scenario.key());
+        System.out.printf("ops=%d throughput=%.1f ops/s%n", latencies.length, latencies.length / elapsedSeconds);
+        System.out.printf("latency(ms) p50=%.3f p99=%.3f p999=%.3f max=%.3f%n",
+                LatencyRecorder.percentileMillis(latencies, 0.50),
+                LatencyRecorder.percentileMillis(latencies, 0.99),
+                LatencyRecorder.percentileMillis(latencies, 0.999),
+                LatencyRecorder.percentileMillis(latencies, 1.0));
+        System.out.printf("outcome success=%d business-exception=%d failure=%d%n", success, business, failure);
+        System.out.printf("physical-tx=%d rollback-rate=%.2f%%%n", physical, physical == 0 ? 0 : rolledBack * 100.0 / physical);
+        if (after.acquireCount < 0) {
+            System.out.println("pool-wait n/a (hikaricp.connections.acquire 지표 없음)");
+        } else {
+            long acquires = after.acquireCount - before.acquireCount;
+            double waitMillis = after.acquireTotalMillis - before.acquireTotalMillis;
+            System.out.printf("pool-wait acquires=%d mean=%.3fms total=%.1fms recent-max=%.3fms%n",
+                    acquires, acquires == 0 ? 0 : waitMillis / acquires, waitMillis, after.acquireMaxMillis);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hello.springtx.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시나리오 전후의 지표 값. 차이로 시나리오 구간의 값을 구한다.
+ * tx.duration          : 물리 트랜잭션 (MeteredTransactionManager, result=commit/rollback/failed)
+ * hikaricp.connections.acquire : 커넥션 풀 대기 시간
+ */
+class MetricsSnapshot {
+
+    final long physicalTransactions;
+    final long rolledBackTransactions;
+    final long acquireCount;
+    final double acquireTotalMillis;
+    final double acquireMaxMillis;
+
+    private MetricsSnapshot(long physicalTransactions, long rolledBackTransactions,
+                            long acquireCount, double acquireTotalMillis, double acquireMaxMillis) {
+        this.physicalTransactions = physicalTransactions;
+        this.rolledBackTransactions = rolledBackTransactions;
+        this.acquireCount = acquireCount;
+        this.acquireTotalMillis = acquireTotalMillis;
+        this.acquireMaxMillis = acquireMaxMillis;
+    }
+
+    static MetricsSnapshot take(MeterRegistry registry) {
+        long physical = 0;
+        long rolledBack = 0;
+        for (Timer timer : registry.find("tx.duration").timers()) {
+            physical += timer.count();
+            if (!"commit".equals(timer.getId().getTag("result"))) {
+                rolledBack += timer.count();
+            }
+        }
+
+        Timer acquire = registry.find("hikaricp.connections.acquire").timer();
+        if (acquire == null) {
+            return new MetricsSnapshot(physical, rolledBack, -1, 0, 0);
+        }
+        return new MetricsSnapshot(physical, rolledBack, acquire.count(),
+                acquire.totalTime(TimeUnit.MILLISECONDS), acquire.max(TimeUnit.MILLISECONDS));
+    }
+}
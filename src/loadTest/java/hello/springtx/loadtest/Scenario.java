@@ -0,0 +1,89 @@
+package hello.springtx.loadtest;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+
+/**
+ * 부하 시나리오. 입력(Input)에 따라 정상, 시스템 예외, 비지니스 예외 경로를 탄다.
+ */
+enum Scenario {
+
+    //REQUIRES_NEW 로그 실패 -> 회원 가입까지 롤백
+    JOIN_V1("joinV1") {
+        @Override
+        void execute(Services services, Input input, String id) {
+            services.memberService.joinV1(username(input, id));
+        }
+    },
+    //REQUIRES_NEW 로그 실패 -> 로그만 롤백
+    JOIN_V2("joinV2") {
+        @Override
+        void execute(Services services, Input input, String id) {
+            services.memberService.joinV2(username(input, id));
+        }
+    },
+    //로그는 AsyncLogWriter 큐로
+    JOIN_V3("joinV3") {
+        @Override
+        void execute(Services services, Input input, String id) {
+            services.memberService.joinV3(username(input, id));
+        }
+    },
+    //정상 -> 완료, 예외 -> 롤백, 잔고부족 -> 커밋 후 NotEnoughMoneyException
+    ORDER("order") {
+        @Override
+        void execute(Services services, Input input, String id) throws NotEnoughMoneyException {
+            Order order = new Order();
+            order.setUsername(input.orderUsername);
+            services.orderService.order(order);
+        }
+    };
+
+    private final String key;
+
+    Scenario(String key) {
+        this.key = key;
+    }
+
+    abstract void execute(Services services, Input input, String id) throws NotEnoughMoneyException;
+
+    String key() {
+        return key;
+    }
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equalsIgnoreCase(key.trim())) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 시나리오: " + key);
+    }
+
+    //회원 가입에는 잔고부족 경로가 없으므로 정상으로 처리한다.
+    private static String username(Input input, String id) {
+        return input == Input.EXCEPTION ? "로그예외-" + id : "load-" + id;
+    }
+
+    enum Input {
+        NORMAL("정상"), EXCEPTION("예외"), NOT_ENOUGH_MONEY("잔고부족");
+
+        private final String orderUsername;
+
+        Input(String orderUsername) {
+            this.orderUsername = orderUsername;
+        }
+    }
+
+    static class Services {
+        private final MemberService memberService;
+        private final OrderService orderService;
+
+        Services(MemberService memberService, OrderService orderService) {
+            this.memberService = memberService;
+            this.orderService = orderService;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package hello.springtx.connection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 커넥션 풀 크기만큼의 permit 으로, 호출 체인이 필요한 커넥션을 트랜잭션 시작 전에 한번에 예약한다.
+ * 모든 스레드가 커넥션 1개를 잡은 채 REQUIRES_NEW 용 커넥션을 기다리며 풀이 고갈되는 상황을 막는다.
+ *
+ * 예약은 권고(advisory)이다. permit 은 커넥션 풀 체크아웃과 연결되어 있지 않아서,
+ * @RequiresConnections 나 reserve() 를 거치는 호출 체인끼리만 교착 상태를 막는다.
+ * 예약 없이 커넥션을 사용하는 경로(AsyncLogWriter 배치, 트랜잭션 밖에서 호출한 LogRepository.saveAll 등,
+ * StartupWarmup)는 permit 과 관계없이 풀에서 커넥션을 가져가므로, 예약에 성공해도 풀에서 잠시 기다릴 수 있다.
+ * 이런 경로는 스레드당 커넥션을 1개만 사용하므로 중첩 획득 교착 상태는 만들지 않는다.
+ * 실제 중첩 획득은 TrackingDataSource 의 nestedAcquireCount 로 확인한다.
+ */
+@Slf4j
+@Component
+public class ConnectionBudget {
+
+    private static final Reservation NONE = () -> { };
+
+    private final Semaphore permits;
+    private final int capacity;
+    private final long acquireTimeoutMillis;
+
+    private final ThreadLocal<Integer> reserved = ThreadLocal.withInitial(() -> 0);
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public ConnectionBudget(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int capacity,
+                            @Value("${springtx.connection-budget.acquire-timeout-ms:1000}") long acquireTimeoutMillis) {
+        this.permits = new Semaphore(capacity, true);
+        this.capacity = capacity;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    public Reservation reserve(int connections, String caller) {
+        int held = reserved.get();
+        if (held >= connections) {
+            //외부 호출에서 이미 예약한 커넥션을 사용한다.
+            return NONE;
+        }
+
+        int needed = connections - held;
+        boolean acquired;
+        if (held > 0) {
+            //이미 커넥션을 잡고 있는 상태에서 기다리면 교착 상태가 될 수 있으므로 기다리지 않는다.
+            acquired = permits.tryAcquire(needed);
+        } else {
+            acquired = await(needed);
+        }
+
+        if (!acquired) {
+            rejectedCount.incrementAndGet();
+            throw new ConnectionBudgetExceededException(String.format(
+                    "커넥션 예약 실패. caller = %s, required = %d, held = %d, available = %d",
+                    caller, connections, held, permits.availablePermits()));
+        }
+
+        reserved.set(held + needed);
+        return () -> {
+            permits.release(needed);
+            reserved.set(reserved.get() - needed);
+        };
+    }
+
+    private boolean await(int needed) {
+        waitingThreads.incrementAndGet();
+        try {
+            return permits.tryAcquire(needed, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public interface Reservation {
+        void release();
+    }
+}
@@ -0,0 +1,34 @@
+package hello.springtx.connection;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 트랜잭션 AOP 보다 먼저 실행되어야 커넥션을 얻기 전에 예약할 수 있다.
+ */
+@Aspect
+@Component
+@Order(ConnectionBudgetAspect.ORDER)
+@RequiredArgsConstructor
+public class ConnectionBudgetAspect {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
+    private final ConnectionBudget connectionBudget;
+
+    @Around("@annotation(requiresConnections)")
+    public Object reserve(ProceedingJoinPoint joinPoint, RequiresConnections requiresConnections) throws Throwable {
+        ConnectionBudget.Reservation reservation =
+                connectionBudget.reserve(requiresConnections.value(), joinPoint.getSignature().toShortString());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            reservation.release();
+        }
+    }
+}
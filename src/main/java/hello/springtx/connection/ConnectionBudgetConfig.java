@@ -0,0 +1,46 @@
+package hello.springtx.connection;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class ConnectionBudgetConfig {
+
+    //BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하므로 static 으로 등록한다.
+    //반환 타입이 Ordered 여야 빈 생성 전에 순서가 적용된다.
+    @Bean
+    public static TrackingDataSourcePostProcessor trackingDataSourcePostProcessor() {
+        return new TrackingDataSourcePostProcessor();
+    }
+
+    static class TrackingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !isTracked((DataSource) bean)) {
+                return new TrackingDataSource((DataSource) bean);
+            }
+            return bean;
+        }
+
+        //read/write 라우팅을 사용하면 LazyConnectionDataSourceProxy 안쪽에서 이미 감싸져 있다. (ReadWriteRoutingConfig)
+        private boolean isTracked(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(TrackingDataSource.class);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        //LazyConnectionDataSourceProxy 보다 안쪽(커넥션 풀 바로 바깥)에서 감싼다.
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 10;
+        }
+    }
+}
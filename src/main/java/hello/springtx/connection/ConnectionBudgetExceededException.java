@@ -0,0 +1,7 @@
+package hello.springtx.connection;
+
+public class ConnectionBudgetExceededException extends RuntimeException {
+    public ConnectionBudgetExceededException(String message) {
+        super(message);
+    }
+}
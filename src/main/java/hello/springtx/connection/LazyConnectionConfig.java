@@ -0,0 +1,77 @@
+package hello.springtx.connection;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * springtx.datasource.lazy-connection.enabled=true 이면 트랜잭션 시작 시점이 아니라 첫 SQL 실행 시점에 물리 커넥션을 얻는다.
+ * SQL 을 실행하지 않는 트랜잭션은 커넥션 풀을 사용하지 않는다.
+ * 커넥션 점유 시간은 hikaricp.connections.usage, 트랜잭션 시간은 tx.duration 으로 비교한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.datasource.lazy-connection.enabled", havingValue = "true")
+public class LazyConnectionConfig {
+
+    @Bean
+    public static LazyConnectionDataSourcePostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new LazyConnectionDataSourcePostProcessor();
+    }
+
+    //커넥션을 트랜잭션이 끝나면 바로 풀에 반환한다.
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    //TrackingDataSource 보다 바깥에서 감싸야 물리 커넥션 기준으로 추적된다.
+    static class LazyConnectionDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !isLazy((DataSource) bean)) {
+                return new LazyDataSource((DataSource) bean);
+            }
+            return bean;
+        }
+
+        //read/write 라우팅을 사용하면 이미 LazyConnectionDataSourceProxy 로 감싸져 있다.
+        private boolean isLazy(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(LazyConnectionDataSourceProxy.class);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    static class LazyDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        LazyDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public void close() throws Exception {
+            DataSource target = obtainTargetDataSource();
+            if (target instanceof AutoCloseable) {
+                ((AutoCloseable) target).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package hello.springtx.connection;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * springtx.datasource.routing.enabled=true 이면 primary/replica 두 개의 커넥션 풀을 만든다.
+ * replica url 을 지정하지 않으면 primary 와 같은 DB 를 바라보는 별도의 풀을 사용한다. (로컬 H2 테스트용)
+ * 두 풀 모두 spring.datasource.hikari.* 설정을 그대로 사용하고, replica 는 풀 크기만 따로 지정한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 @Value("${springtx.datasource.replica.url:}") String replicaUrl,
+                                 @Value("${springtx.datasource.replica.maximum-pool-size:10}") int replicaMaximumPoolSize,
+                                 @Value("${springtx.datasource.routing.read-your-writes-window-ms:1000}") long readYourWritesWindowMillis) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        if (StringUtils.hasText(replicaUrl)) {
+            replica.setJdbcUrl(replicaUrl);
+        }
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(replicaMaximumPoolSize);
+        replica.setReadOnly(true);
+
+        pools.add(primary);
+        pools.add(replica);
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(readYourWritesWindowMillis);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+
+        //실제 커넥션은 첫 쿼리 시점에 얻는다. 이때는 트랜잭션의 readOnly 여부가 이미 정해져 있다.
+        //TrackingDataSource 는 LazyConnectionDataSourceProxy 안쪽에 두어야 물리 커넥션 기준으로 추적된다.
+        return new LazyConnectionDataSourceProxy(new TrackingDataSource(routingDataSource));
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,102 @@
+package hello.springtx.connection;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * readOnly = true 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * 트랜잭션 속성이 정해진 뒤에 커넥션을 얻어야 하므로 LazyConnectionDataSourceProxy 로 감싸서 사용한다.
+ * 쓰기 트랜잭션이 커밋된 직후에는 복제 지연을 고려해 readOnly 트랜잭션도 primary 로 보낸다. (read-your-writes)
+ * - 세션 키가 지정되어 있으면(ReadYourWrites) 같은 세션의 커밋을 기준으로 한다. 다른 스레드에서 처리한 요청에도 적용된다.
+ * - 세션 키가 없으면 같은 스레드에서 커밋한 쓰기만 기준으로 한다. (스레드 단위)
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final long readYourWritesWindowNanos;
+    private final ThreadLocal<Long> lastWriteCommittedAt = new ThreadLocal<>();
+    //세션별 마지막 쓰기 커밋 시각. 창이 지나면 만료된다.
+    private final Cache<String, Long> lastWriteCommittedAtBySession;
+
+    private final AtomicLong primaryCount = new AtomicLong();
+    private final AtomicLong replicaCount = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(long readYourWritesWindowMillis) {
+        this.readYourWritesWindowNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesWindowMillis);
+        this.lastWriteCommittedAtBySession = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindowMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWriteCommit();
+            primaryCount.incrementAndGet();
+            return Route.PRIMARY;
+        }
+
+        if (withinReadYourWritesWindow()) {
+            primaryCount.incrementAndGet();
+            return Route.PRIMARY;
+        }
+
+        replicaCount.incrementAndGet();
+        return Route.REPLICA;
+    }
+
+    private void registerWriteCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String session = ReadYourWrites.currentSession();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long now = System.nanoTime();
+                lastWriteCommittedAt.set(now);
+                if (session != null) {
+                    lastWriteCommittedAtBySession.put(session, now);
+                }
+            }
+        });
+    }
+
+    private boolean withinReadYourWritesWindow() {
+        String session = ReadYourWrites.currentSession();
+        if (session != null) {
+            Long committedAt = lastWriteCommittedAtBySession.getIfPresent(session);
+            if (committedAt != null && System.nanoTime() - committedAt < readYourWritesWindowNanos) {
+                return true;
+            }
+        }
+
+        Long committedAt = lastWriteCommittedAt.get();
+        if (committedAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - committedAt < readYourWritesWindowNanos) {
+            return true;
+        }
+        lastWriteCommittedAt.remove();
+        return false;
+    }
+
+    public long getPrimaryCount() {
+        return primaryCount.get();
+    }
+
+    public long getReplicaCount() {
+        return replicaCount.get();
+    }
+}
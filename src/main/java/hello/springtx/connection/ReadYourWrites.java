@@ -0,0 +1,42 @@
+package hello.springtx.connection;
+
+import java.util.function.Supplier;
+
+/**
+ * read-your-writes 창을 스레드가 아니라 사용자(세션) 단위로 적용할 때 사용한다.
+ * 요청을 처리하는 동안 세션 키를 지정하면, 그 세션이 다른 스레드에서 커밋한 쓰기 이후에도 readOnly 트랜잭션을 primary 로 보낸다.
+ * 세션 키가 없으면 같은 스레드에서 커밋한 쓰기만 고려한다. (ReadWriteRoutingDataSource)
+ * 예) ReadYourWrites.call(username, () -> memberRepository.find(username))
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<String> session = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static <T> T call(String sessionKey, Supplier<T> action) {
+        String previous = session.get();
+        session.set(sessionKey);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                session.remove();
+            } else {
+                session.set(previous);
+            }
+        }
+    }
+
+    public static void run(String sessionKey, Runnable action) {
+        call(sessionKey, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static String currentSession() {
+        return session.get();
+    }
+}
@@ -0,0 +1,16 @@
+package hello.springtx.connection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 호출 체인 전체가 동시에 사용하는 커넥션 수.
+ * 예) 외부 트랜잭션 + REQUIRES_NEW 내부 트랜잭션 = 2
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresConnections {
+    int value() default 1;
+}
@@ -0,0 +1,127 @@
+package hello.springtx.connection;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 스레드별로 잡고 있는 커넥션 수를 추적한다.
+ * 이미 커넥션을 가진 스레드가 커넥션을 하나 더 요청하는 경우(REQUIRES_NEW)를 중첩 획득으로 보고 대기 중인 스레드 수를 센다.
+ */
+public class TrackingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final ThreadLocal<Integer> heldConnections = ThreadLocal.withInitial(() -> 0);
+    private final AtomicInteger nestedWaitingThreads = new AtomicInteger();
+    private final AtomicLong nestedAcquireCount = new AtomicLong();
+
+    public TrackingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(() -> super.getConnection(username, password));
+    }
+
+    private Connection track(ConnectionSupplier supplier) throws SQLException {
+        int held = heldConnections.get();
+        boolean nested = held > 0;
+        if (nested) {
+            nestedAcquireCount.incrementAndGet();
+            nestedWaitingThreads.incrementAndGet();
+        }
+
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } finally {
+            if (nested) {
+                nestedWaitingThreads.decrementAndGet();
+            }
+        }
+
+        heldConnections.set(held + 1);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new CloseTrackingHandler(connection));
+    }
+
+    private void released() {
+        int held = heldConnections.get();
+        if (held > 0) {
+            heldConnections.set(held - 1);
+        }
+    }
+
+    //감싸진 커넥션 풀(HikariDataSource)이 컨텍스트 종료 시점에 닫히도록 위임한다.
+    @Override
+    public void close() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            ((AutoCloseable) target).close();
+        }
+    }
+
+    //현재 스레드가 잡고 있는 물리 커넥션 수
+    public int getHeldConnections() {
+        return heldConnections.get();
+    }
+
+    public int getNestedWaitingThreads() {
+        return nestedWaitingThreads.get();
+    }
+
+    public long getNestedAcquireCount() {
+        return nestedAcquireCount.get();
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private class CloseTrackingHandler implements InvocationHandler {
+
+        private final Connection target;
+        private boolean closed;
+
+        CloseTrackingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        released();
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package hello.springtx.export;
+
+/**
+ * 내보내기 형식
+ * CSV    : 첫 줄 헤더, 필요한 값만 따옴표로 감싼다.
+ * NDJSON : 한 줄에 JSON 객체 하나
+ */
+public enum ExportFormat {
+    CSV, NDJSON
+}
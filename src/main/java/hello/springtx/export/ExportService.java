@@ -0,0 +1,79 @@
+package hello.springtx.export;
+
+import hello.springtx.connection.RequiresConnections;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 테이블 전체를 커서로 읽으면서 한 row 씩 Writer 로 내보낸다.
+ * 읽은 엔티티는 쓰고 나서 바로 detach 하므로 테이블 크기와 상관없이 메모리 사용량이 일정하다.
+ * readOnly 트랜잭션이라 라우팅이 켜져 있으면 replica 에서 읽는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private final OrderRepository orderRepository;
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final EntityManager em;
+
+    @RequiresConnections(1)
+    @Transactional(readOnly = true)
+    public long exportOrders(Writer out, ExportFormat format) {
+        RowWriter writer = new RowWriter(out, format, "id", "username", "payStatus", "idempotencyKey");
+        return export("orders", orderRepository.streamAll(), writer,
+                (Order o) -> new Object[]{o.getId(), o.getUsername(), o.getPayStatus(), o.getIdempotencyKey()});
+    }
+
+    @RequiresConnections(1)
+    @Transactional(readOnly = true)
+    public long exportMembers(Writer out, ExportFormat format) {
+        RowWriter writer = new RowWriter(out, format, "id", "username");
+        return export("member", memberRepository.stream(), writer,
+                (Member m) -> new Object[]{m.getId(), m.getUsername()});
+    }
+
+    @RequiresConnections(1)
+    @Transactional(readOnly = true)
+    public long exportLogs(Writer out, ExportFormat format) {
+        RowWriter writer = new RowWriter(out, format, "id", "message");
+        return export("log", logRepository.stream(), writer,
+                (Log l) -> new Object[]{l.getId(), l.getMessage()});
+    }
+
+    private <T> long export(String table, Stream<T> rows, RowWriter writer, Function<T, Object[]> columns) {
+        long count = 0;
+        try (rows) {
+            writer.writeHeader();
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.writeRow(columns.apply(row));
+                em.detach(row); //영속성 컨텍스트에 쌓이지 않도록 바로 분리
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(table + " 내보내기 실패", e);
+        }
+        log.info("{} 내보내기 완료 rows={}", table, count);
+        return count;
+    }
+}
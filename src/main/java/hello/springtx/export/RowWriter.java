@@ -0,0 +1,93 @@
+package hello.springtx.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 한 row 씩 바로 Writer 에 쓴다. 내보내는 동안 row 를 모아두지 않는다.
+ */
+class RowWriter {
+
+    private final Writer out;
+    private final ExportFormat format;
+    private final String[] columns;
+
+    RowWriter(Writer out, ExportFormat format, String... columns) {
+        this.out = out;
+        this.format = format;
+        this.columns = columns;
+    }
+
+    void writeHeader() throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsv((Object[]) columns);
+        }
+    }
+
+    void writeRow(Object... values) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsv(values);
+        } else {
+            writeJson(values);
+        }
+    }
+
+    private void writeCsv(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(csv(values[i]));
+        }
+        out.write('\n');
+    }
+
+    private void writeJson(Object... values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(json(columns[i]));
+            out.write(':');
+            out.write(values[i] instanceof Number ? values[i].toString() : json(values[i]));
+        }
+        out.write("}\n");
+    }
+
+    static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    static String json(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value.toString();
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,61 @@
+package hello.springtx.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시퀀스에서 blockSize 개씩 id 블록을 받아 스트라이프(스레드 그룹)별로 나누어 준다.
+ * 블록 안에서는 CAS 로 id 를 꺼내므로 id 하나마다 락을 잡지 않는다. 블록을 다 쓴 스트라이프만 새 블록을 받을 때 락을 잡는다.
+ */
+public class StripedIdAllocator {
+
+    private final Stripe[] stripes;
+    private final int blockSize;
+
+    public StripedIdAllocator(int stripes, int blockSize) {
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @param blockSource 새 블록의 시작 값을 반환한다. 블록은 [시작 값, 시작 값 + blockSize)
+     */
+    public long next(LongSupplier blockSource) {
+        Stripe stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        while (true) {
+            Block block = stripe.block;
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+
+            synchronized (stripe) {
+                if (stripe.block == block) {
+                    long start = blockSource.getAsLong();
+                    stripe.block = new Block(start, start + blockSize);
+                }
+            }
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private static final class Stripe {
+        private volatile Block block = new Block(0, 0);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
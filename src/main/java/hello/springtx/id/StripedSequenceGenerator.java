@@ -0,0 +1,55 @@
+package hello.springtx.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * pooled-lo 시퀀스 + StripedIdAllocator
+ * 시퀀스는 allocation_size 만큼 증가하고, 받은 값부터 allocation_size 개의 id 를 스트라이프 단위로 메모리에서 할당한다.
+ * IDENTITY 와 달리 persist 시점에 insert 하지 않으므로 insert 를 커밋 시점까지 미루고 JDBC 배치로 묶을 수 있다.
+ *
+ * allocation_size, stripes 는 엔티티의 @GenericGenerator 파라미터로 지정하거나,
+ * spring.jpa.properties.springtx.id.allocation_size / springtx.id.stripes 로 전체 기본값을 바꿀 수 있다.
+ */
+public class StripedSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "hello.springtx.id.StripedSequenceGenerator";
+    public static final String STRIPES_PARAM = "stripes";
+    public static final String ALLOCATION_SIZE_SETTING = "springtx.id.allocation_size";
+    public static final String STRIPES_SETTING = "springtx.id.stripes";
+
+    private static final int DEFAULT_ALLOCATION_SIZE = 50;
+    private static final int DEFAULT_STRIPES = 8;
+
+    private StripedIdAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING, settings, DEFAULT_ALLOCATION_SIZE);
+        int stripes = ConfigurationHelper.getInt(STRIPES_SETTING, settings, DEFAULT_STRIPES);
+
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.put(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+
+        allocator = new StripedIdAllocator(
+                ConfigurationHelper.getInt(STRIPES_PARAM, params, stripes),
+                getDatabaseStructure().getIncrementSize());
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return allocator.next(() -> getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue());
+    }
+}
@@ -0,0 +1,96 @@
+package hello.springtx.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 트랜잭션/SQL 상세 로거 전용 appender. 로그를 바로 쓰지 않고 TransactionTraceBuffer 에 모았다가
+ * 트랜잭션이 남기기로 결정되면 연결된 appender(AsyncAppender)로 한꺼번에 넘긴다.
+ * 메시지 포맷은 넘길 때까지 미루고 스레드 이름과 MDC 만 미리 잡아 둔다.
+ * enabled=false(springtx.logging.trace-sampling.enabled) 이면 모으지 않고 바로 넘긴다.
+ * 이때는 트랜잭션 매니저가 TransactionTraceBuffer 에 트랜잭션 경계를 알리지 않으므로 모으면 남지 않는다.
+ */
+public class SampledTraceAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements AppenderAttachable<ILoggingEvent> {
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private boolean enabled = true;
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            TransactionTraceBuffer.setSink(this::flush);
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (enabled) {
+            TransactionTraceBuffer.setSink(null);
+        }
+        appenders.detachAndStopAllAppenders();
+        super.stop();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!enabled) {
+            appenders.appendLoopOnAppenders(event);
+            return;
+        }
+        event.getThreadName();
+        event.getMDCPropertyMap();
+        TransactionTraceBuffer.add(event);
+    }
+
+    private void flush(List<ILoggingEvent> events) {
+        for (ILoggingEvent event : events) {
+            appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,76 @@
+package hello.springtx.logging;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * 물리 트랜잭션의 시작과 끝(커밋/롤백)을 TransactionTraceBuffer 에 알린다.
+ */
+public class TraceSamplingTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager target;
+
+    public TraceSamplingTransactionManager(PlatformTransactionManager target) {
+        this.target = target;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        //트랜잭션을 식별하는 로그("Creating new transaction with name ...")는 target.getTransaction 안에서 남는다.
+        //새 물리 트랜잭션인지는 끝나야 알 수 있으므로 먼저 버퍼를 열고, 아니면 되돌린다.
+        TransactionTraceBuffer.begin();
+        TransactionStatus status;
+        try {
+            status = target.getTransaction(definition);
+        } catch (RuntimeException | Error e) {
+            TransactionTraceBuffer.complete(true); //시작 실패(커넥션 획득 실패 등)도 롤백처럼 남긴다.
+            throw e;
+        }
+        if (!status.isNewTransaction()) {
+            TransactionTraceBuffer.unwind();
+        }
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        if (!status.isNewTransaction()) {
+            target.commit(status);
+            return;
+        }
+        boolean rolledBack = status.isRollbackOnly();
+        try {
+            target.commit(status);
+        } catch (RuntimeException | Error e) {
+            rolledBack = true;
+            throw e;
+        } finally {
+            TransactionTraceBuffer.complete(rolledBack);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        if (!status.isNewTransaction()) {
+            //참여 중인 트랜잭션의 롤백은 rollback-only 만 표시한다. 바깥 트랜잭션의 로그도 남긴다.
+            try {
+                target.rollback(status);
+            } finally {
+                TransactionTraceBuffer.keep();
+            }
+            return;
+        }
+        try {
+            target.rollback(status);
+        } finally {
+            TransactionTraceBuffer.complete(true);
+        }
+    }
+
+    public PlatformTransactionManager getTargetTransactionManager() {
+        return target;
+    }
+}
@@ -0,0 +1,114 @@
+package hello.springtx.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 스레드별로 트랜잭션/SQL 상세 로그를 모아 두었다가 가장 바깥 물리 트랜잭션이 끝날 때 남길지 버릴지 정한다.
+ * 남기는 경우: rate 비율로 샘플링된 트랜잭션, slowThreshold 보다 오래 걸린 트랜잭션, 롤백된 트랜잭션(내부 트랜잭션 롤백 포함)
+ * 버퍼는 capacity 개까지만 오래된 것부터 버리므로 메모리는 스레드당 capacity 개로 제한된다.
+ * 트랜잭션 밖에서 남긴 로그(트랜잭션 없이 실행한 SQL 등)는 모으지 않고 rate 비율로 바로 남기거나 버린다.
+ * 모아 두면 같은 스레드의 다음 트랜잭션에 섞이기 때문이다.
+ * 로그백 appender(SampledTraceAppender)와 트랜잭션 매니저(TraceSamplingTransactionManager)가 함께 사용한다.
+ */
+public final class TransactionTraceBuffer {
+
+    private static volatile double sampleRate = 0.01;
+    private static volatile long slowThresholdNanos = 500_000_000L;
+    private static volatile int capacity = 256;
+    private static volatile Consumer<List<ILoggingEvent>> sink;
+
+    private static final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    private TransactionTraceBuffer() {
+    }
+
+    public static void configure(double sampleRate, long slowThresholdMillis, int capacity) {
+        TransactionTraceBuffer.sampleRate = sampleRate;
+        TransactionTraceBuffer.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+        TransactionTraceBuffer.capacity = capacity;
+    }
+
+    static void setSink(Consumer<List<ILoggingEvent>> sink) {
+        TransactionTraceBuffer.sink = sink;
+    }
+
+    static void add(ILoggingEvent event) {
+        State current = state.get();
+        if (current.depth == 0) {
+            Consumer<List<ILoggingEvent>> target = sink;
+            if (target != null && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                target.accept(List.of(event));
+            }
+            return;
+        }
+        if (current.events.size() >= capacity) {
+            current.events.pollFirst();
+        }
+        current.events.addLast(event);
+    }
+
+    //물리 트랜잭션 시작
+    public static void begin() {
+        State current = state.get();
+        if (current.depth++ == 0) {
+            current.startNanos = System.nanoTime();
+            current.keep = false;
+        }
+    }
+
+    //begin() 을 되돌린다. 새 물리 트랜잭션이 시작되지 않은 경우(기존 트랜잭션 참여, 트랜잭션 없이 실행)
+    //트랜잭션 밖으로 돌아오면 그동안 모은 로그는 트랜잭션 밖 로그와 같이 rate 비율로 남기거나 버린다.
+    public static void unwind() {
+        State current = state.get();
+        if (current.depth == 0 || --current.depth > 0) {
+            return;
+        }
+
+        Consumer<List<ILoggingEvent>> target = sink;
+        if (target != null && !current.events.isEmpty() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            target.accept(new ArrayList<>(current.events));
+        }
+        state.remove();
+    }
+
+    //참여 중인 트랜잭션이 롤백되면 바깥 트랜잭션이 커밋되더라도 로그를 남긴다.
+    public static void keep() {
+        state.get().keep = true;
+    }
+
+    //물리 트랜잭션 종료. 가장 바깥 트랜잭션이 끝나면 남길지 결정한다.
+    public static void complete(boolean rolledBack) {
+        State current = state.get();
+        current.keep |= rolledBack;
+        if (current.depth == 0 || --current.depth > 0) {
+            return;
+        }
+
+        boolean slow = System.nanoTime() - current.startNanos >= slowThresholdNanos;
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        Consumer<List<ILoggingEvent>> target = sink;
+        if ((current.keep || slow || sampled) && target != null && !current.events.isEmpty()) {
+            target.accept(new ArrayList<>(current.events));
+        }
+        state.remove();
+    }
+
+    //현재 스레드에 모인 로그 (테스트용)
+    static List<ILoggingEvent> buffered() {
+        return Collections.unmodifiableList(new ArrayList<>(state.get().events));
+    }
+
+    private static class State {
+        private final ArrayDeque<ILoggingEvent> events = new ArrayDeque<>();
+        private int depth;
+        private long startNanos;
+        private boolean keep;
+    }
+}
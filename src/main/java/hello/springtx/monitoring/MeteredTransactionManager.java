@@ -0,0 +1,161 @@
+package hello.springtx.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 매니저를 감싸서 @Transactional 메서드별로 시간을 기록한다.
+ * tx.begin  : 트랜잭션 시작 (신규 트랜잭션이면 커넥션 획득 포함)
+ * tx.body   : 시작 이후 커밋/롤백 요청까지 (비지니스 로직)
+ * tx.commit : 커밋 (rollback-only 가 표시되어 있으면 result=rollback)
+ * tx.rollback
+ * tx.duration : 물리 트랜잭션 전체 시간 (커넥션 점유 시간 hikaricp.connections.usage 와 비교)
+ */
+public class MeteredTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager target;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<TransactionStatus, Sample> samples = new ConcurrentHashMap<>();
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    //MeterRegistry 는 트랜잭션 매니저에 의존하는 빈(MeterBinder)을 초기화하므로 처음 사용할 때 조회한다.
+    public MeteredTransactionManager(PlatformTransactionManager target, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.target = target;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        String method = methodName(definition);
+        long start = System.nanoTime();
+        TransactionStatus status;
+        try {
+            status = target.getTransaction(definition);
+        } catch (RuntimeException e) {
+            record("tx.begin", method, "unknown", "failed", System.nanoTime() - start);
+            throw e;
+        }
+
+        long begun = System.nanoTime();
+        Sample sample = new Sample(method, status.isNewTransaction(), start, begun);
+        record("tx.begin", method, sample.physical(), "success", begun - start);
+        samples.put(status, sample);
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Sample sample = samples.remove(status);
+        long start = System.nanoTime();
+        String result = status.isRollbackOnly() ? "rollback" : "commit";
+        try {
+            target.commit(status);
+        } catch (RuntimeException e) {
+            result = "failed";
+            throw e;
+        } finally {
+            complete(sample, "tx.commit", result, start);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Sample sample = samples.remove(status);
+        long start = System.nanoTime();
+        String result = "rollback";
+        try {
+            target.rollback(status);
+        } catch (RuntimeException e) {
+            result = "failed";
+            throw e;
+        } finally {
+            complete(sample, "tx.rollback", result, start);
+        }
+    }
+
+    public PlatformTransactionManager getTargetTransactionManager() {
+        return target;
+    }
+
+    private void complete(@Nullable Sample sample, String name, String result, long start) {
+        if (sample == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        record("tx.body", sample.method, sample.physical(), result, start - sample.begunNanos);
+        record(name, sample.method, sample.physical(), result, end - start);
+        if (sample.newTransaction) {
+            record("tx.duration", sample.method, sample.physical(), result, end - sample.startNanos);
+        }
+    }
+
+    //매 트랜잭션마다 Timer.builder 와 레지스트리 조회를 하지 않도록 태그 조합별 Timer 를 들고 있는다.
+    private void record(String name, String method, String physical, String result, long nanos) {
+        timers.computeIfAbsent(new TimerKey(name, method, physical, result), this::register)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.name)
+                .tag("method", key.method)
+                .tag("physical", key.physical)
+                .tag("result", key.result)
+                .register(meterRegistry());
+    }
+
+    private MeterRegistry meterRegistry() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistryProvider.getObject();
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+
+    static String methodName(@Nullable TransactionDefinition definition) {
+        if (definition == null || definition.getName() == null) {
+            return "unnamed";
+        }
+        return definition.getName();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class TimerKey {
+        private final String name;
+        private final String method;
+        private final String physical;
+        private final String result;
+    }
+
+    private static class Sample {
+        private final String method;
+        private final boolean newTransaction;
+        private final long startNanos;
+        private final long begunNanos;
+
+        Sample(String method, boolean newTransaction, long startNanos, long begunNanos) {
+            this.method = method;
+            this.newTransaction = newTransaction;
+            this.startNanos = startNanos;
+            this.begunNanos = begunNanos;
+        }
+
+        String physical() {
+            return String.valueOf(newTransaction);
+        }
+    }
+}
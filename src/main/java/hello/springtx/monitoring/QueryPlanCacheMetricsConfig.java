@@ -0,0 +1,48 @@
+package hello.springtx.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.query.spi.QueryPlanCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 하이버네이트 쿼리 플랜 캐시 지표. (hibernate.generate_statistics=true 이어야 집계된다.)
+ * 적중률이 떨어지면 spring.jpa.properties.hibernate.query.plan_cache_max_size 를 늘린다.
+ */
+@Configuration
+public class QueryPlanCacheMetricsConfig {
+
+    @Bean
+    public MeterBinder queryPlanCacheMetrics(EntityManagerFactory emf) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        int maxSize = ConfigurationHelper.getInt(AvailableSettings.QUERY_PLAN_CACHE_MAX_SIZE,
+                sessionFactory.getProperties(), QueryPlanCache.DEFAULT_QUERY_PLAN_MAX_COUNT);
+
+        return registry -> {
+            FunctionCounter.builder("hibernate.query.plan.cache.hits", statistics, Statistics::getQueryPlanCacheHitCount).register(registry);
+            FunctionCounter.builder("hibernate.query.plan.cache.misses", statistics, Statistics::getQueryPlanCacheMissCount).register(registry);
+            Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetricsConfig::hitRatio).register(registry);
+            Gauge.builder("hibernate.query.plan.cache.max.size", () -> maxSize).register(registry);
+            //플랜 캐시의 현재 크기가 아니다. (하이버네이트가 공개하지 않는다.)
+            //Statistics 가 지금까지 본 서로 다른 HQL 문자열 수이고, 플랜 캐시에서 밀려난 쿼리도 포함한다.
+            Gauge.builder("hibernate.query.executed.distinct", statistics, s -> s.getQueries().length)
+                    .description("Statistics 가 기록한 서로 다른 HQL 쿼리 수 (플랜 캐시 크기 아님)")
+                    .register(registry);
+        };
+    }
+
+    static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
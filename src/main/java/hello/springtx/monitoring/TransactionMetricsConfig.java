@@ -0,0 +1,118 @@
+package hello.springtx.monitoring;
+
+import hello.springtx.connection.ConnectionBudget;
+import hello.springtx.connection.TrackingDataSource;
+import hello.springtx.logging.TraceSamplingTransactionManager;
+import hello.springtx.logging.TransactionTraceBuffer;
+import hello.springtx.monitoring.jfr.FlightRecorderTransactionManager;
+import hello.springtx.propagation.AsyncLogWriter;
+import hello.springtx.retention.LogRetentionService;
+import hello.springtx.retry.RetryBudget;
+import hello.springtx.retry.RetryableTxAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class TransactionMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor meteredTransactionManagerPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                           ObjectProvider<TransactionWatchdog> watchdog,
+                                                                           Environment environment) {
+        boolean traceSampling = environment.getProperty("springtx.logging.trace-sampling.enabled", Boolean.class, false);
+        if (traceSampling) {
+            TransactionTraceBuffer.configure(
+                    environment.getProperty("springtx.logging.trace-sampling.rate", Double.class, 0.01),
+                    environment.getProperty("springtx.logging.trace-sampling.slow-threshold-ms", Long.class, 500L),
+                    environment.getProperty("springtx.logging.trace-sampling.buffer-size", Integer.class, 256));
+        }
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PlatformTransactionManager && !(bean instanceof MeteredTransactionManager)) {
+                    //Micrometer 타이머 -> JFR 이벤트 -> 워치독 -> (로그 샘플링) -> 실제 트랜잭션 매니저
+                    PlatformTransactionManager target = (PlatformTransactionManager) bean;
+                    if (traceSampling) {
+                        target = new TraceSamplingTransactionManager(target);
+                    }
+                    PlatformTransactionManager watched = new WatchdogTransactionManager(target, watchdog);
+                    PlatformTransactionManager recorded = new FlightRecorderTransactionManager(watched);
+                    return new MeteredTransactionManager(recorded, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder asyncLogWriterMetrics(AsyncLogWriter asyncLogWriter) {
+        return registry -> {
+            Gauge.builder("log.async.queue.depth", asyncLogWriter, AsyncLogWriter::getQueueDepth).register(registry);
+            Gauge.builder("log.async.queue.remaining", asyncLogWriter, AsyncLogWriter::getRemainingCapacity).register(registry);
+            FunctionCounter.builder("log.async.written", asyncLogWriter, AsyncLogWriter::getWrittenCount).register(registry);
+            FunctionCounter.builder("log.async.failed", asyncLogWriter, AsyncLogWriter::getFailedCount).register(registry);
+            FunctionCounter.builder("log.async.rejected", asyncLogWriter, AsyncLogWriter::getRejectedCount).register(registry);
+            FunctionCounter.builder("log.async.batches", asyncLogWriter, AsyncLogWriter::getBatchCount).register(registry);
+        };
+    }
+
+    //삭제 속도: rate(log.retention.purged) 는 벽시계 기준이므로 정리 실행 중의 속도는 last.rows.per.second 로 본다.
+    @Bean
+    public MeterBinder logRetentionMetrics(LogRetentionService logRetentionService) {
+        return registry -> {
+            FunctionCounter.builder("log.retention.purged", logRetentionService, LogRetentionService::getPurgedCount)
+                    .baseUnit("rows")
+                    .register(registry);
+            FunctionTimer.builder("log.retention.duration", logRetentionService,
+                    LogRetentionService::getPurgeCount, LogRetentionService::getPurgeTimeMillis, TimeUnit.MILLISECONDS).register(registry);
+            Gauge.builder("log.retention.last.rows.per.second", logRetentionService, LogRetentionService::getLastRowsPerSecond).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionBudgetMetrics(ConnectionBudget connectionBudget, DataSource dataSource) throws SQLException {
+        TrackingDataSource trackingDataSource = dataSource.unwrap(TrackingDataSource.class);
+        return registry -> {
+            Gauge.builder("connection.budget.available", connectionBudget, ConnectionBudget::getAvailablePermits).register(registry);
+            Gauge.builder("connection.budget.waiting", connectionBudget, ConnectionBudget::getWaitingThreads).register(registry);
+            FunctionCounter.builder("connection.budget.rejected", connectionBudget, ConnectionBudget::getRejectedCount).register(registry);
+            Gauge.builder("connection.nested.waiting", trackingDataSource, TrackingDataSource::getNestedWaitingThreads).register(registry);
+            FunctionCounter.builder("connection.nested.acquired", trackingDataSource, TrackingDataSource::getNestedAcquireCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder retryMetrics(RetryableTxAspect retryableTxAspect, RetryBudget retryBudget) {
+        return registry -> {
+            FunctionCounter.builder("tx.retry.retries", retryableTxAspect, RetryableTxAspect::getRetryCount).register(registry);
+            FunctionCounter.builder("tx.retry.exhausted", retryableTxAspect, RetryableTxAspect::getExhaustedCount).register(registry);
+            Gauge.builder("tx.retry.budget.tokens", retryBudget, RetryBudget::getAvailableTokens).register(registry);
+            FunctionCounter.builder("tx.retry.budget.rejected", retryBudget, RetryBudget::getRejectedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionWatchdogMetrics(TransactionWatchdog transactionWatchdog) {
+        return registry -> {
+            Gauge.builder("tx.active", transactionWatchdog, TransactionWatchdog::getActiveCount).register(registry);
+            Gauge.builder("tx.active.oldest", transactionWatchdog, TransactionWatchdog::getOldestMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionCounter.builder("tx.watchdog.flagged", transactionWatchdog, TransactionWatchdog::getFlaggedCount).register(registry);
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package hello.springtx.monitoring;
+
+import hello.springtx.connection.ConnectionBudgetAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * @Transactional 메서드의 결과를 예외 종류와 롤백 여부로 센다. (tx.outcome)
+ * 예) 런타임 예외 -> rollback, NotEnoughMoneyException(체크 예외) -> commit
+ * 프록시 모드에서만 등록한다. AspectJ 위빙 모드에서 등록하면 모든 @Transactional 빈이 다시 프록시가 되어
+ * 위빙의 의미(프록시 없는 호출)가 없어진다. 위빙 모드에서는 tx.commit/tx.rollback(MeteredTransactionManager)으로 결과를 본다.
+ * 트랜잭션 AOP 보다 바깥에서 실행되어야 커밋 시점의 실패(flush 중 제약 조건 위반, 낙관적 락 실패)도 예외로 받아서 rollback 으로 센다.
+ */
+@Aspect
+@Component
+@Order(TransactionOutcomeAspect.ORDER)
+@ConditionalOnProperty(name = "springtx.transaction.mode", havingValue = "proxy", matchIfMissing = true)
+public class TransactionOutcomeAspect {
+
+    //트랜잭션 AOP(LOWEST_PRECEDENCE) 바로 바깥, 커넥션 예약(ConnectionBudgetAspect) 안쪽
+    public static final int ORDER = ConnectionBudgetAspect.ORDER + 50;
+
+    private final MeterRegistry meterRegistry;
+    private final TransactionAttributeSource transactionAttributeSource;
+
+    public TransactionOutcomeAspect(MeterRegistry meterRegistry,
+                                    ObjectProvider<TransactionAttributeSource> transactionAttributeSource) {
+        this.meterRegistry = meterRegistry;
+        this.transactionAttributeSource = transactionAttributeSource.getIfAvailable(AnnotationTransactionAttributeSource::new);
+    }
+
+    @Around("@annotation(org.springframework.transaction.annotation.Transactional) " +
+            "|| @within(org.springframework.transaction.annotation.Transactional)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        try {
+            Object result = joinPoint.proceed();
+            count(method, targetClass, null, "commit");
+            return result;
+        } catch (Throwable ex) {
+            TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, targetClass);
+            boolean rollback = attribute == null || attribute.rollbackOn(ex);
+            count(method, targetClass, ex, rollback ? "rollback" : "commit");
+            throw ex;
+        }
+    }
+
+    private void count(Method method, Class<?> targetClass, Throwable ex, String decision) {
+        meterRegistry.counter("tx.outcome",
+                "method", ClassUtils.getQualifiedMethodName(method, targetClass),
+                "exception", ex == null ? "none" : ex.getClass().getSimpleName(),
+                "type", exceptionType(ex),
+                "decision", decision).increment();
+    }
+
+    private static String exceptionType(Throwable ex) {
+        if (ex == null) {
+            return "none";
+        }
+        if (ex instanceof RuntimeException) {
+            return "runtime";
+        }
+        if (ex instanceof Error) {
+            return "error";
+        }
+        return "checked";
+    }
+}
@@ -0,0 +1,130 @@
+package hello.springtx.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 진행 중인 물리 트랜잭션을 추적해서 threshold 보다 오래 열려 있는 트랜잭션을 경고 로그로 남긴다.
+ * 트랜잭션 스레드의 스택, 점유 시간, 남은 타임아웃을 함께 남기므로 커넥션 풀이 마르기 전에 원인을 볼 수 있다.
+ * 실제로 끊는 것은 트랜잭션 타임아웃이다. (하이버네이트가 남은 타임아웃을 JDBC 쿼리 타임아웃으로 건다.)
+ */
+@Slf4j
+@Component
+public class TransactionWatchdog {
+
+    private final Map<TransactionStatus, ActiveTransaction> active = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tx-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long thresholdNanos;
+    private final long scanIntervalMillis;
+    private final Duration defaultTimeout;
+
+    private final AtomicLong flaggedCount = new AtomicLong();
+    private final AtomicReference<String> lastFlagged = new AtomicReference<>();
+
+    public TransactionWatchdog(@Value("${springtx.tx.watchdog.threshold-ms:5000}") long thresholdMillis,
+                               @Value("${springtx.tx.watchdog.scan-interval-ms:1000}") long scanIntervalMillis,
+                               @Value("${spring.transaction.default-timeout:#{null}}") Duration defaultTimeout) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.scanIntervalMillis = scanIntervalMillis;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        scanner.scheduleWithFixedDelay(this::scan, scanIntervalMillis, scanIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scanner.shutdownNow();
+    }
+
+    void begin(TransactionStatus status, String method, TransactionDefinition definition) {
+        int timeoutSeconds = definition.getTimeout();
+        long timeoutMillis = timeoutSeconds != TransactionDefinition.TIMEOUT_DEFAULT ? timeoutSeconds * 1000L
+                : defaultTimeout != null ? defaultTimeout.toMillis() : -1;
+        active.put(status, new ActiveTransaction(Thread.currentThread(), method, timeoutMillis));
+    }
+
+    void end(TransactionStatus status) {
+        active.remove(status);
+    }
+
+    void scan() {
+        long now = System.nanoTime();
+        for (ActiveTransaction tx : active.values()) {
+            long heldNanos = now - tx.startNanos;
+            if (heldNanos < thresholdNanos || tx.flagged) {
+                continue;
+            }
+            tx.flagged = true;
+            flaggedCount.incrementAndGet();
+
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(heldNanos);
+            String remaining = tx.timeoutMillis < 0 ? "없음" : Math.max(0, tx.timeoutMillis - heldMillis) + "ms";
+            StringBuilder stack = new StringBuilder();
+            for (StackTraceElement element : tx.thread.getStackTrace()) {
+                stack.append("\n\tat ").append(element);
+            }
+            String message = String.format("오래 실행 중인 트랜잭션 method=%s thread=%s held=%dms remainingTimeout=%s",
+                    tx.method, tx.thread.getName(), heldMillis, remaining);
+            lastFlagged.set(message + stack);
+            log.warn("{}{}", message, stack);
+        }
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    //가장 오래된 트랜잭션이 열려 있는 시간
+    public long getOldestMillis() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (ActiveTransaction tx : active.values()) {
+            oldest = Math.max(oldest, now - tx.startNanos);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(oldest);
+    }
+
+    public long getFlaggedCount() {
+        return flaggedCount.get();
+    }
+
+    public String getLastFlagged() {
+        return lastFlagged.get();
+    }
+
+    private static class ActiveTransaction {
+        private final Thread thread;
+        private final String method;
+        private final long timeoutMillis;
+        private final long startNanos = System.nanoTime();
+        private volatile boolean flagged;
+
+        ActiveTransaction(Thread thread, String method, long timeoutMillis) {
+            this.thread = thread;
+            this.method = method;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
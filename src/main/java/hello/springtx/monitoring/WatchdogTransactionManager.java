@@ -0,0 +1,69 @@
+package hello.springtx.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * 신규 물리 트랜잭션을 TransactionWatchdog 에 등록하고 커밋/롤백되면 해제한다.
+ */
+public class WatchdogTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager target;
+    private final ObjectProvider<TransactionWatchdog> watchdogProvider;
+    private volatile TransactionWatchdog watchdog;
+
+    //TransactionWatchdog 은 처음 사용할 때 조회한다. (트랜잭션 매니저 후처리 시점에는 아직 만들지 않는다.)
+    public WatchdogTransactionManager(PlatformTransactionManager target, ObjectProvider<TransactionWatchdog> watchdogProvider) {
+        this.target = target;
+        this.watchdogProvider = watchdogProvider;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        TransactionStatus status = target.getTransaction(definition);
+        if (status.isNewTransaction()) {
+            TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+            watchdog().begin(status, MeteredTransactionManager.methodName(definition), def);
+        }
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        try {
+            target.commit(status);
+        } finally {
+            if (status.isNewTransaction()) {
+                watchdog().end(status);
+            }
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        try {
+            target.rollback(status);
+        } finally {
+            if (status.isNewTransaction()) {
+                watchdog().end(status);
+            }
+        }
+    }
+
+    public PlatformTransactionManager getTargetTransactionManager() {
+        return target;
+    }
+
+    private TransactionWatchdog watchdog() {
+        TransactionWatchdog current = watchdog;
+        if (current == null) {
+            current = watchdogProvider.getObject();
+            watchdog = current;
+        }
+        return current;
+    }
+}
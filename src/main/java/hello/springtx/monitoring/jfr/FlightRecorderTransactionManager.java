@@ -0,0 +1,258 @@
+package hello.springtx.monitoring.jfr;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.AbstractTransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 트랜잭션 매니저를 감싸서 트랜잭션 구조를 JFR 이벤트로 남긴다. (hello.springtx.Transaction*)
+ * 물리 트랜잭션마다 id 를 붙이고 스레드별로 논리 트랜잭션 스택을 관리해서 외부/내부 트랜잭션 트리를 다시 그릴 수 있게 한다.
+ * 녹화 중이 아니면 JFR 이벤트는 거의 비용이 없으므로 운영에서 항상 켜 둔다. (-XX:StartFlightRecording 또는 jcmd JFR.start)
+ */
+public class FlightRecorderTransactionManager implements PlatformTransactionManager {
+
+    private static final AtomicLong transactionIds = new AtomicLong();
+    private static final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final PlatformTransactionManager target;
+
+    public FlightRecorderTransactionManager(PlatformTransactionManager target) {
+        this.target = target;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        Deque<Frame> stack = frames.get();
+        Frame current = stack.peek();
+
+        TransactionBeginEvent beginEvent = new TransactionBeginEvent();
+        TransactionParticipateEvent participateEvent = new TransactionParticipateEvent();
+        beginEvent.begin();
+        participateEvent.begin();
+
+        TransactionStatus status = target.getTransaction(definition);
+
+        Frame frame;
+        if (status.isNewTransaction()) {
+            frame = new Frame(status, def, transactionIds.incrementAndGet(), enclosingId(current), true);
+            commit(beginEvent, frame);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new SuspensionRecorder(frame));
+            }
+        } else if (hasTransaction(status) && current != null) {
+            frame = new Frame(status, def, current.transactionId, current.parentTransactionId, false);
+            commit(participateEvent, frame);
+        } else {
+            //트랜잭션 없이 실행 (SUPPORTS, NOT_SUPPORTED, NEVER)
+            frame = new Frame(status, def, 0, enclosingId(current), false);
+        }
+        stack.push(frame);
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        if (frame == null || frame.transactionId == 0) {
+            target.commit(status);
+            return;
+        }
+
+        if (!frame.newTransaction) {
+            //참여 중인 논리 트랜잭션이 setRollbackOnly 후 커밋하면 물리 트랜잭션에 rollback-only 가 표시된다.
+            boolean marks = status instanceof AbstractTransactionStatus && ((AbstractTransactionStatus) status).isLocalRollbackOnly();
+            TransactionRollbackOnlyEvent event = new TransactionRollbackOnlyEvent();
+            try {
+                target.commit(status);
+            } finally {
+                if (marks) {
+                    commit(event, frame);
+                }
+            }
+            return;
+        }
+
+        if (status.isRollbackOnly()) {
+            TransactionRollbackEvent event = new TransactionRollbackEvent();
+            event.reason = "rollback-only";
+            event.begin();
+            try {
+                target.commit(status);
+            } catch (UnexpectedRollbackException e) {
+                throw e; //rollback-only 로 인한 정상적인 롤백
+            } catch (RuntimeException | Error e) {
+                event.failed = true;
+                throw e;
+            } finally {
+                event.transactionDuration = System.nanoTime() - frame.startNanos;
+                commit(event, frame);
+            }
+            return;
+        }
+
+        TransactionCommitEvent event = new TransactionCommitEvent();
+        event.begin();
+        try {
+            target.commit(status);
+        } catch (RuntimeException | Error e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.transactionDuration = System.nanoTime() - frame.startNanos;
+            commit(event, frame);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        if (frame == null || frame.transactionId == 0) {
+            target.rollback(status);
+            return;
+        }
+
+        if (!frame.newTransaction) {
+            //참여 중인 논리 트랜잭션의 롤백은 물리 트랜잭션에 rollback-only 를 표시한다.
+            TransactionRollbackOnlyEvent event = new TransactionRollbackOnlyEvent();
+            try {
+                target.rollback(status);
+            } finally {
+                commit(event, frame);
+            }
+            return;
+        }
+
+        TransactionRollbackEvent event = new TransactionRollbackEvent();
+        event.reason = "rollback";
+        event.begin();
+        try {
+            target.rollback(status);
+        } catch (RuntimeException | Error e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.transactionDuration = System.nanoTime() - frame.startNanos;
+            commit(event, frame);
+        }
+    }
+
+    public PlatformTransactionManager getTargetTransactionManager() {
+        return target;
+    }
+
+    private static Frame pop(TransactionStatus status) {
+        Deque<Frame> stack = frames.get();
+        Frame found = null;
+        if (stack.peek() != null && stack.peek().status == status) {
+            found = stack.pop();
+        } else {
+            for (Iterator<Frame> it = stack.iterator(); it.hasNext(); ) {
+                Frame frame = it.next();
+                if (frame.status == status) {
+                    it.remove();
+                    found = frame;
+                    break;
+                }
+            }
+        }
+        if (stack.isEmpty()) {
+            frames.remove();
+        }
+        return found;
+    }
+
+    private static long enclosingId(@Nullable Frame current) {
+        if (current == null) {
+            return 0;
+        }
+        return current.transactionId != 0 ? current.transactionId : current.parentTransactionId;
+    }
+
+    private static boolean hasTransaction(TransactionStatus status) {
+        return !(status instanceof DefaultTransactionStatus) || ((DefaultTransactionStatus) status).hasTransaction();
+    }
+
+    private static void commit(TransactionEvent event, Frame frame) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.transactionId = frame.transactionId;
+            event.parentTransactionId = frame.parentTransactionId;
+            event.method = frame.method;
+            event.propagation = frame.propagation;
+            event.readOnly = frame.readOnly;
+            event.commit();
+        }
+    }
+
+    static String propagationName(int behavior) {
+        for (Propagation propagation : Propagation.values()) {
+            if (propagation.value() == behavior) {
+                return propagation.name();
+            }
+        }
+        return String.valueOf(behavior);
+    }
+
+    /**
+     * 신규 트랜잭션에 등록해서 REQUIRES_NEW, NOT_SUPPORTED 로 보류되었다가 재개되는 시간을 기록한다.
+     */
+    private static class SuspensionRecorder implements TransactionSynchronization {
+
+        private final Frame frame;
+        private TransactionSuspendEvent event;
+
+        SuspensionRecorder(Frame frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public void suspend() {
+            event = new TransactionSuspendEvent();
+            event.begin();
+        }
+
+        @Override
+        public void resume() {
+            if (event != null) {
+                commit(event, frame);
+                event = null;
+            }
+        }
+    }
+
+    private static class Frame {
+        private final TransactionStatus status;
+        private final long transactionId;
+        private final long parentTransactionId;
+        private final String method;
+        private final String propagation;
+        private final boolean readOnly;
+        private final boolean newTransaction;
+        private final long startNanos = System.nanoTime();
+
+        Frame(TransactionStatus status, TransactionDefinition definition, long transactionId, long parentTransactionId,
+              boolean newTransaction) {
+            this.status = status;
+            this.transactionId = transactionId;
+            this.parentTransactionId = parentTransactionId;
+            this.method = definition.getName() != null ? definition.getName() : "unnamed";
+            this.propagation = propagationName(definition.getPropagationBehavior());
+            this.readOnly = definition.isReadOnly();
+            this.newTransaction = newTransaction;
+        }
+    }
+}
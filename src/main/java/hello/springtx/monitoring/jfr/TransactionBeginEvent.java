@@ -0,0 +1,11 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("hello.springtx.TransactionBegin")
+@Label("Transaction Begin")
+@Description("신규 물리 트랜잭션 시작. 이벤트 시간은 커넥션 획득을 포함한 시작 비용")
+class TransactionBeginEvent extends TransactionEvent {
+}
@@ -0,0 +1,19 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("hello.springtx.TransactionCommit")
+@Label("Transaction Commit")
+@Description("물리 트랜잭션 커밋. 이벤트 시간은 커밋 비용")
+class TransactionCommitEvent extends TransactionEvent {
+
+    @Label("Transaction Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long transactionDuration;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,31 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * 트랜잭션 JFR 이벤트 공통 필드.
+ * transactionId 는 물리 트랜잭션마다 하나. 참여한 논리 트랜잭션은 참여한 물리 트랜잭션의 id 를 가진다.
+ * parentTransactionId 는 신규 트랜잭션이 시작될 때 바깥에 있던(보류된) 트랜잭션. 없으면 0.
+ */
+@Category({"Spring", "Transaction"})
+@StackTrace(false)
+abstract class TransactionEvent extends Event {
+
+    @Label("Transaction Id")
+    long transactionId;
+
+    @Label("Parent Transaction Id")
+    long parentTransactionId;
+
+    @Label("Method")
+    String method;
+
+    @Label("Propagation")
+    String propagation;
+
+    @Label("Read Only")
+    boolean readOnly;
+}
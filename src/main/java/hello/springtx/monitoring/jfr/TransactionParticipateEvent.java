@@ -0,0 +1,11 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("hello.springtx.TransactionParticipate")
+@Label("Transaction Participate")
+@Description("기존 트랜잭션에 참여한 논리 트랜잭션 시작")
+class TransactionParticipateEvent extends TransactionEvent {
+}
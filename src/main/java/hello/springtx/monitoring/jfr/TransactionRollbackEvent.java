@@ -0,0 +1,22 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("hello.springtx.TransactionRollback")
+@Label("Transaction Rollback")
+@Description("물리 트랜잭션 롤백. reason 이 rollback-only 이면 커밋을 요청했지만 rollback-only 표시 때문에 롤백된 것")
+class TransactionRollbackEvent extends TransactionEvent {
+
+    @Label("Reason")
+    String reason;
+
+    @Label("Transaction Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long transactionDuration;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,11 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("hello.springtx.TransactionRollbackOnly")
+@Label("Transaction Mark Rollback-Only")
+@Description("참여한 논리 트랜잭션이 롤백되어 물리 트랜잭션에 rollback-only 가 표시됨")
+class TransactionRollbackOnlyEvent extends TransactionEvent {
+}
@@ -0,0 +1,11 @@
+package hello.springtx.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("hello.springtx.TransactionSuspend")
+@Label("Transaction Suspended")
+@Description("REQUIRES_NEW, NOT_SUPPORTED 로 보류된 트랜잭션. 이벤트 시작이 suspend, 끝이 resume 이므로 시간이 보류된 시간")
+class TransactionSuspendEvent extends TransactionEvent {
+}
@@ -0,0 +1,103 @@
+package hello.springtx.order;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * idempotencyKey 가 같은 주문이 다시 들어오면 쓰기 트랜잭션을 열지 않고 처음 결과를 그대로 돌려준다.
+ * 최근 키는 메모리 캐시에서 찾고, 없으면 DB(unique index)에서 찾는다.
+ * 커밋된 결과(완료, 대기)만 기억한다. 런타임 예외로 롤백된 주문은 다시 처리한다.
+ * 캐시에는 엔티티 대신 불변 결과(주문 id, payStatus)만 두고, 중복 요청마다 요청 객체에 채워서 돌려준다.
+ * 엔티티를 두면 모든 중복 요청이 처음 호출한 쪽이 계속 바꿀 수 있는 같은 객체를 받는다.
+ * OrderService.order 의 트랜잭션 AOP 밖에서 확인해야 하므로 별도의 빈으로 분리했다.
+ */
+@Slf4j
+@Service
+public class IdempotentOrderService {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final Cache<String, Outcome> recentOrders;
+
+    public IdempotentOrderService(OrderService orderService,
+                                  OrderRepository orderRepository,
+                                  @Value("${springtx.order.idempotency.cache-size:10000}") long cacheSize,
+                                  @Value("${springtx.order.idempotency.cache-ttl-minutes:10}") long cacheTtlMinutes) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.recentOrders = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+    }
+
+    public Order order(Order order) throws NotEnoughMoneyException {
+        String key = order.getIdempotencyKey();
+        if (key == null) {
+            orderService.order(order);
+            return order;
+        }
+
+        Optional<Outcome> original = findOriginal(key);
+        if (original.isPresent()) {
+            log.info("중복 주문 요청. idempotencyKey = {}", key);
+            return replay(order, original.get());
+        }
+
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            recentOrders.put(key, Outcome.of(order));
+            throw e;
+        } catch (RuntimeException e) {
+            //같은 키의 주문이 동시에 들어와 다른 요청이 먼저 커밋했다면 unique index 위반으로 롤백된다.
+            //insert 는 커밋 시점에 실행되므로 예외 타입 대신 커밋된 주문이 있는지로 확인한다.
+            Outcome committed = orderRepository.findByIdempotencyKey(key).map(Outcome::of).orElseThrow(() -> e);
+            recentOrders.put(key, committed);
+            return replay(order, committed);
+        }
+
+        recentOrders.put(key, Outcome.of(order));
+        return order;
+    }
+
+    private Optional<Outcome> findOriginal(String key) {
+        Outcome cached = recentOrders.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Outcome> stored = orderRepository.findByIdempotencyKey(key).map(Outcome::of);
+        stored.ifPresent(outcome -> recentOrders.put(key, outcome));
+        return stored;
+    }
+
+    //처음 결과를 요청 객체에 채운다. payStatus 대기 = 처음 요청이 NotEnoughMoneyException 으로 끝났다.
+    private Order replay(Order request, Outcome original) throws NotEnoughMoneyException {
+        if ("대기".equals(original.payStatus)) {
+            throw new NotEnoughMoneyException("잔고가 부족합니다.");
+        }
+        request.setId(original.orderId);
+        request.setPayStatus(original.payStatus);
+        return request;
+    }
+
+    private static final class Outcome {
+        private final Long orderId;
+        private final String payStatus;
+
+        private Outcome(Long orderId, String payStatus) {
+            this.orderId = orderId;
+            this.payStatus = payStatus;
+        }
+
+        static Outcome of(Order order) {
+            return new Outcome(order.getId(), order.getPayStatus());
+        }
+    }
+}
@@ -1,21 +1,44 @@
 package hello.springtx.order;
 
+import hello.springtx.id.StripedSequenceGenerator;
+import hello.springtx.retry.RetryAware;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 @Table(name = "orders")
+//이름 있는 쿼리는 기동할 때 파싱, 검증된다. 스프링 데이터가 "엔티티명.메서드명" 으로 찾아서 사용한다. (OrderRepository)
+@NamedQuery(name = "Order.findByIdForUpdate", query = "select o from Order o where o.id = :id")
+@NamedQuery(name = "Order.streamAll", query = "select o from Order o order by o.id")
+@NamedQuery(name = "Order.updatePayStatus",
+        query = "update Order o set o.payStatus = :to, o.version = o.version + 1 where o.id in :ids and o.payStatus = :from")
 @Getter
 @Setter
-public class Order {
+public class Order implements RetryAware {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_seq_generator")
+    @GenericGenerator(name = "order_seq_generator", strategy = StripedSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "orders_seq"))
     private Long id;
 
     private String username; // 정상,예외,잔고부족
     private String payStatus; // 대기,완료
 
+    @Column(unique = true)
+    private String idempotencyKey; // 클라이언트 재시도 시 같은 값
+
+    @Version
+    private Long version; // 낙관적 락. 동시에 같은 주문을 바꾸면 나중에 커밋하는 쪽이 실패한다.
+
+    //롤백된 시도에서 할당된 id, 버전을 지워서 다음 시도에 새 주문으로 저장되게 한다.
+    @Override
+    public void resetForRetry() {
+        id = null;
+        version = null;
+    }
 }
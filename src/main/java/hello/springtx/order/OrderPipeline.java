@@ -0,0 +1,172 @@
+package hello.springtx.order;
+
+import hello.springtx.connection.ConnectionBudget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 주문 스트림을 groupSize 단위로 나누어 워커 스레드에서 처리한다. 한 그룹은 하나의 트랜잭션으로 커밋한다.
+ * 주문별 결과는 OrderService.order 와 같다.
+ * - 런타임 예외: 해당 주문 롤백
+ * - NotEnoughMoneyException: 커밋, payStatus = 대기
+ * 그룹 안에서 런타임 예외가 발생하면 그룹 전체가 롤백되므로, 주문 하나씩 각자의 트랜잭션으로 다시 처리한다.
+ * 대기 중인 그룹은 queueCapacity 개까지만 쌓는다. 큐가 가득 차면 submit 을 호출한 스레드가 자리가 날 때까지 기다린다(back-pressure).
+ */
+@Slf4j
+@Component
+public class OrderPipeline {
+
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ConnectionBudget connectionBudget;
+    private final ThreadPoolExecutor workers;
+    private final int groupSize;
+
+    public OrderPipeline(OrderService orderService,
+                         TransactionTemplate transactionTemplate,
+                         ConnectionBudget connectionBudget,
+                         @Value("${springtx.order.pipeline.workers:4}") int workers,
+                         @Value("${springtx.order.pipeline.group-size:20}") int groupSize,
+                         @Value("${springtx.order.pipeline.queue-capacity:8}") int queueCapacity) {
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.connectionBudget = connectionBudget;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory(), new BlockWhenFull());
+        this.groupSize = groupSize;
+    }
+
+    public List<CompletableFuture<OrderResult>> submit(Stream<Order> orders) {
+        List<CompletableFuture<OrderResult>> futures = new ArrayList<>();
+        Iterator<Order> iterator = orders.iterator();
+        while (iterator.hasNext()) {
+            List<Order> group = new ArrayList<>(groupSize);
+            List<CompletableFuture<OrderResult>> groupFutures = new ArrayList<>(groupSize);
+            while (iterator.hasNext() && group.size() < groupSize) {
+                group.add(iterator.next());
+                groupFutures.add(new CompletableFuture<>());
+            }
+            futures.addAll(groupFutures);
+            try {
+                //큐가 가득 차면 여기서 기다린다.
+                workers.execute(() -> process(group, groupFutures));
+            } catch (RejectedExecutionException e) {
+                groupFutures.forEach(future -> future.completeExceptionally(e));
+            }
+        }
+        return futures;
+    }
+
+    private void process(List<Order> group, List<CompletableFuture<OrderResult>> futures) {
+        //그룹 트랜잭션이 커넥션을 잡고 있는 동안 내부 OrderService.order 가 커넥션을 따로 예약하지 않도록 먼저 예약한다.
+        ConnectionBudget.Reservation reservation;
+        try {
+            reservation = connectionBudget.reserve(1, "OrderPipeline.process");
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+
+        try {
+            List<OrderResult> results;
+            try {
+                results = transactionTemplate.execute(status -> orderGroup(group));
+            } catch (RuntimeException e) {
+                log.info("주문 그룹 롤백, 주문별 트랜잭션으로 다시 처리합니다. size = {}", group.size());
+                results = new ArrayList<>(group.size());
+                for (Order order : group) {
+                    results.add(orderOne(order));
+                }
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.completeExceptionally(e));
+        } finally {
+            reservation.release();
+        }
+    }
+
+    private List<OrderResult> orderGroup(List<Order> group) {
+        List<OrderResult> results = new ArrayList<>(group.size());
+        for (Order order : group) {
+            try {
+                orderService.order(order);
+                results.add(OrderResult.completed(order));
+            } catch (NotEnoughMoneyException e) {
+                results.add(OrderResult.waiting(order, e));
+            }
+        }
+        return results;
+    }
+
+    private OrderResult orderOne(Order order) {
+        //롤백된 그룹 트랜잭션에서 할당된 id 를 지워야 새 주문으로 저장된다.
+        order.resetForRetry();
+        try {
+            orderService.order(order);
+            return OrderResult.completed(order);
+        } catch (NotEnoughMoneyException e) {
+            return OrderResult.waiting(order, e);
+        } catch (RuntimeException e) {
+            return OrderResult.rolledBack(order, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    //큐가 가득 차면 버리지 않고 자리가 날 때까지 기다린다.
+    private static class BlockWhenFull implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("order pipeline 이 종료되었습니다.");
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("order pipeline 제출 대기 중 인터럽트", e);
+            }
+            //큐에 직접 넣었으므로 execute 의 종료 확인을 거치지 않는다. 기다리는 동안 종료되었으면 워커가 이미 끝났을 수 있으므로
+            //아직 큐에 남아 있으면 꺼내서 거절한다. (submit 이 그룹의 future 를 예외로 완료한다.)
+            if (executor.isShutdown() && executor.getQueue().remove(task)) {
+                throw new RejectedExecutionException("order pipeline 이 종료되었습니다.");
+            }
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "order-pipeline-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
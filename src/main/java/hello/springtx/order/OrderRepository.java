@@ -1,6 +1,48 @@
 package hello.springtx.order;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    //SELECT ... FOR UPDATE. 커밋할 때까지 다른 트랜잭션은 이 주문을 읽어서 바꿀 수 없다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "3000"))
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 전체 주문을 forward-only 커서로 id 순서대로 흘려보낸다. (내보내기용)
+     * 스트림은 호출한 쪽 트랜잭션 안에서 소비하고 닫아야 한다.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_MODE, value = "IGNORE")
+    })
+    @Transactional(readOnly = true)
+    Stream<Order> streamAll();
+
+    /**
+     * ids 중 payStatus 가 from 인 주문만 to 로 한 번의 UPDATE 로 바꾼다.
+     * 영속성 컨텍스트를 거치지 않으므로 실행 전에 flush, 실행 후에 clear 해서 컨텍스트와 DB를 맞춘다.
+     * (clear 하므로 호출한 트랜잭션이 들고 있던 엔티티는 준영속이 된다.)
+     * 버전도 올려서 이 주문을 들고 있던 다른 트랜잭션의 낙관적 락이 실패하게 한다.
+     * @return 실제로 바뀐 row 수
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    int updatePayStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
 }
@@ -0,0 +1,32 @@
+package hello.springtx.order;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderResult {
+
+    public enum Status {
+        COMPLETED,   //커밋, payStatus = 완료
+        WAITING,     //NotEnoughMoneyException, 커밋, payStatus = 대기
+        ROLLED_BACK  //런타임 예외, 롤백
+    }
+
+    private final Order order;
+    private final Status status;
+    private final Exception exception;
+
+    public static OrderResult completed(Order order) {
+        return new OrderResult(order, Status.COMPLETED, null);
+    }
+
+    public static OrderResult waiting(Order order, NotEnoughMoneyException e) {
+        return new OrderResult(order, Status.WAITING, e);
+    }
+
+    public static OrderResult rolledBack(Order order, RuntimeException e) {
+        return new OrderResult(order, Status.ROLLED_BACK, e);
+    }
+}
@@ -1,19 +1,30 @@
 package hello.springtx.order;
 
+import hello.springtx.connection.RequiresConnections;
+import hello.springtx.retry.RetryableTx;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
 
+    //IN 절 하나에 넣을 최대 id 수
+    static final int SETTLE_CHUNK_SIZE = 1000;
+
     private final OrderRepository orderRepository;
 
     //JPA 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영한다.
-    @Transactional
+    @RetryableTx //락 타임아웃, 데드락은 새 트랜잭션으로 다시 시도한다. NotEnoughMoneyException 은 재시도하지 않는다.
+    @RequiresConnections(1)
+    @Transactional(timeout = 10) //락을 잡은 채로 오래 걸리면 남은 시간이 쿼리 타임아웃으로 걸려서 취소된다.
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
         orderRepository.save(order);
@@ -37,4 +48,53 @@ public class OrderService {
 
     }
 
+    /**
+     * 정산: "대기" 주문을 엔티티 로딩 없이 set 기반 UPDATE 로 "완료" 처리한다.
+     * 이미 "완료" 이거나 없는 id 는 건너뛴다.
+     * @return "완료" 로 바뀐 주문 수
+     */
+    @RequiresConnections(1)
+    @Transactional
+    public int settle(Collection<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(orderIds);
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += SETTLE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SETTLE_CHUNK_SIZE, ids.size()));
+            updated += orderRepository.updatePayStatus(chunk, "대기", "완료");
+        }
+        log.info("정산 완료 요청={} 변경={}", ids.size(), updated);
+        return updated;
+    }
+
+    /**
+     * 결제 상태 변경 (낙관적 락). 락 없이 읽고 커밋 시점에 버전을 비교한다.
+     * 동시에 같은 주문을 바꿔서 버전이 어긋나면 @RetryableTx 가 새 트랜잭션으로 다시 읽어서 바꾼다.
+     */
+    @RetryableTx
+    @RequiresConnections(1)
+    @Transactional
+    public void changePayStatus(Long orderId, String payStatus) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("주문이 없습니다. id=" + orderId));
+        order.setPayStatus(payStatus);
+    }
+
+    //결제 상태 변경 (낙관적 락, 재시도 없음). 비교용. 버전이 어긋나면 ObjectOptimisticLockingFailureException 으로 바로 실패한다.
+    @RequiresConnections(1)
+    @Transactional
+    public void changePayStatusWithoutRetry(Long orderId, String payStatus) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("주문이 없습니다. id=" + orderId));
+        order.setPayStatus(payStatus);
+    }
+
+    //결제 상태 변경 (비관적 락). 비교용. 같은 주문을 바꾸려는 트랜잭션은 커밋까지 기다린다.
+    @RequiresConnections(1)
+    @Transactional
+    public void changePayStatusWithLock(Long orderId, String payStatus) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("주문이 없습니다. id=" + orderId));
+        order.setPayStatus(payStatus);
+    }
+
 }
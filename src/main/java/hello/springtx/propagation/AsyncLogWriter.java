@@ -0,0 +1,201 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그를 bounded 큐에 쌓고, 백그라운드 스레드가 여러 건을 묶어 하나의 트랜잭션으로 커밋한다.
+ * 회원 가입 트랜잭션이 REQUIRES_NEW 로 커넥션을 하나 더 잡고 로그 한 건마다 커밋하는 비용을 없앤다.
+ */
+@Slf4j
+@Component
+public class AsyncLogWriter {
+
+    private final LogRepository logRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Log> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final Thread writer = new Thread(this::run, "async-log-writer");
+    private volatile boolean running = true;
+
+    public AsyncLogWriter(LogRepository logRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${springtx.log.async.capacity:10000}") int capacity,
+                          @Value("${springtx.log.async.batch-size:100}") int batchSize,
+                          @Value("${springtx.log.async.offer-timeout-ms:100}") long offerTimeoutMillis) {
+        this.logRepository = logRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤에 큐에 넣는다. 롤백되면(커밋 시점의 제약 조건 위반 포함) 로그를 남기지 않는다.
+     * 트랜잭션 밖에서 호출하면 바로 넣는다.
+     */
+    public void writeAfterCommit(Log logMessage) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeOrLog(logMessage);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writeOrLog(logMessage);
+            }
+        });
+    }
+
+    private void writeOrLog(Log logMessage) {
+        if (!write(logMessage)) {
+            log.info("log 큐가 가득 차서 저장하지 못했습니다. logMessage = {}", logMessage.getMessage());
+        }
+    }
+
+    /**
+     * 큐가 가득 차면 offerTimeoutMillis 만큼 기다린다(back-pressure). 그래도 자리가 없으면 false 를 반환한다.
+     */
+    public boolean write(Log logMessage) {
+        if (!running) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        pendingCount.incrementAndGet();
+        try {
+            if (queue.offer(logMessage, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                //running 확인과 offer 사이에 stop() 이 끝났을 수 있다. 이미 종료한 writer 는 큐를 비우지 않으므로 되돌린다.
+                //remove 가 실패하면 writer 가 가져간 것이므로 저장된다.
+                if (running || !queue.remove(logMessage)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pendingCount.decrementAndGet();
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 큐에 들어간 로그가 모두 저장될 때까지 기다린다.
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pendingCount.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //종료 시점에는 새 로그를 받지 않고, 큐에 남은 로그를 모두 저장한 뒤 스레드를 종료한다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("async log writer 종료. 남은 로그 = {}", queue.size());
+        running = false;
+        writer.join();
+    }
+
+    private void run() {
+        List<Log> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Log first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                //종료는 running 플래그로 처리하므로 남은 로그를 계속 비운다.
+                log.info("async log writer interrupted");
+            } finally {
+                pendingCount.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Log> batch) {
+        batchCount.incrementAndGet();
+        try {
+            transactionTemplate.executeWithoutResult(status -> logRepository.saveAll(batch));
+            writtenCount.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            //배치 전체가 롤백되었으므로 한 건씩 다시 저장해서 실패한 로그만 버린다.
+            log.info("로그 배치 저장 실패, 단건 저장으로 전환합니다. size = {}", batch.size());
+            for (Log logMessage : batch) {
+                logMessage.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> logRepository.saveAll(List.of(logMessage)));
+                    writtenCount.incrementAndGet();
+                } catch (RuntimeException ex) {
+                    log.info("log 저장에 실패했습니다. logMessage = {}", logMessage.getMessage());
+                    failedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+}
@@ -0,0 +1,23 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class BulkJoinResult {
+
+    private final List<String> joined = new ArrayList<>();
+    private final Map<String, String> failed = new LinkedHashMap<>(); // username -> 실패 사유
+
+    void addJoined(List<String> usernames) {
+        joined.addAll(usernames);
+    }
+
+    void addFailed(String username, String reason) {
+        failed.put(username, reason);
+    }
+}
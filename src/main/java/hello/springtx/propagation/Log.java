@@ -1,28 +1,58 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.StripedSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_log_message", columnList = "message"),
+        @Index(name = "idx_log_created_at", columnList = "created_at") //보관 기간 삭제용
+})
+//이름 있는 쿼리는 기동할 때 파싱, 검증된다. (LogRepository)
+@NamedQuery(name = "Log.findByMessage", query = "select l from Log l where l.message = :message")
+@NamedQuery(name = "Log.existsByMessage", query = "select l.id from Log l where l.message = :message")
+@NamedQuery(name = "Log.streamAll", query = "select l from Log l order by l.id")
+@NamedQuery(name = "Log.findIdsCreatedBefore", query = "select l.id from Log l where l.createdAt < :cutoff order by l.createdAt")
+@NamedQuery(name = "Log.deleteByIds", query = "delete from Log l where l.id in :ids")
 @Getter
 @Setter
 public class Log {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "log_seq_generator")
+    @GenericGenerator(name = "log_seq_generator", strategy = StripedSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "log_seq")) //IDENTITY 는 JDBC 배치 insert 가 불가능하다.
     private Long id;
 
     private String message;
 
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
     public Log() {
     }
 
     public Log(String message) {
         this.message = message;
     }
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
@@ -1,13 +1,20 @@
 package hello.springtx.propagation;
 
+import hello.springtx.connection.RequiresConnections;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 @Slf4j
@@ -16,6 +23,7 @@ public class LogRepository {
 
     private final EntityManager em;
 
+    @RequiresConnections(1)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void save(Log logMessage) {
         log.info("Log save");
@@ -27,11 +35,74 @@ public class LogRepository {
         }
     }
 
+    //대량 저장은 호출한 쪽의 트랜잭션(청크)에 참여한다.
+    @Transactional
+    public void saveAll(List<Log> logMessages) {
+        log.info("Log saveAll size = {}", logMessages.size());
+        for (Log logMessage : logMessages) {
+            em.persist(logMessage);
+
+            if(logMessage.getMessage().contains("로그예외")) {
+                log.info("log 저장시 예외 발생");
+                throw new RuntimeException("예외 발생");
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //readOnly 트랜잭션은 라우팅이 켜져 있으면 replica 에서 조회한다.
+    @Transactional(readOnly = true)
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
+        return em.createNamedQuery("Log.findByMessage", Log.class)
                 .setParameter("message",message)
+                .setMaxResults(1)
                 .getResultList()
                 .stream()
-                .findAny();
+                .findFirst();
+    }
+
+    //엔티티를 조회하지 않고 id 한 건만 확인한다.
+    @Transactional(readOnly = true)
+    public boolean exists(String message) {
+        return !em.createNamedQuery("Log.existsByMessage", Long.class)
+                .setParameter("message",message)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * 전체를 forward-only 커서로 id 순서대로 흘려보낸다. (내보내기용)
+     * 스트림은 호출한 쪽 트랜잭션 안에서 소비하고 닫아야 한다.
+     * 읽기 전용으로 조회해 스냅샷을 만들지 않고, 2차 캐시도 채우지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Stream<Log> stream() {
+        return em.createNamedQuery("Log.streamAll", Log.class)
+                .setHint(QueryHints.FETCH_SIZE, 500) //한 번에 가져오는 row 수 (메모리는 이만큼만 사용)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
+    }
+
+    //created_at 이 cutoff 이전인 로그 id 를 오래된 순서로 limit 건만 조회한다. (idx_log_created_at 사용)
+    @Transactional(readOnly = true)
+    public List<Long> findIdsCreatedBefore(LocalDateTime cutoff, int limit) {
+        return em.createNamedQuery("Log.findIdsCreatedBefore", Long.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    //영속성 컨텍스트를 거치지 않고 한 번의 DELETE 로 지운다.
+    @Transactional
+    public int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createNamedQuery("Log.deleteByIds")
+                .setParameter("ids", ids)
+                .executeUpdate();
     }
 }
@@ -1,20 +1,37 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.StripedSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //2차 캐시 설정은 application.conf
+@Table(indexes = @Index(name = "idx_member_username", columnList = "username", unique = true))
+//이름 있는 쿼리는 기동할 때 파싱, 검증된다. (MemberRepository)
+@NamedQuery(name = "Member.findByUsername", query = "select m from Member m where m.username = :username")
+@NamedQuery(name = "Member.existsByUsername", query = "select m.id from Member m where m.username = :username")
+@NamedQuery(name = "Member.streamAll", query = "select m from Member m order by m.id")
 @Getter
 @Setter
 public class Member {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = StripedSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "member_seq")) //IDENTITY 는 JDBC 배치 insert 가 불가능하다.
     private Long id;
 
     private String username;
@@ -1,12 +1,17 @@
 package hello.springtx.propagation;
 
+import hello.springtx.connection.RequiresConnections;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
@@ -15,17 +20,58 @@ public class MemberRepository {
 
     private final EntityManager em;
 
+    @RequiresConnections(1)
     @Transactional
     public void save(Member member) {
         log.info("member save");
         em.persist(member);
     }
 
+    //청크 단위로 저장한다. flush 시점에 hibernate.jdbc.batch_size 만큼 묶어서 insert 하고, clear 로 영속성 컨텍스트를 비운다.
+    @Transactional
+    public void saveAll(List<Member> members) {
+        log.info("member saveAll size = {}", members.size());
+        for (Member member : members) {
+            em.persist(member);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //readOnly 트랜잭션은 라우팅이 켜져 있으면 replica 에서 조회한다.
+    @Transactional(readOnly = true)
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        return em.createNamedQuery("Member.findByUsername", Member.class)
                 .setParameter("username",username)
+                .setHint(QueryHints.CACHEABLE, true) //쿼리 캐시. member 테이블에 커밋이 일어나면 무효화된다.
+                .setMaxResults(1)
                 .getResultList()
                 .stream()
-                .findAny();
+                .findFirst();
+    }
+
+    //엔티티를 조회하지 않고 id 한 건만 확인한다.
+    @Transactional(readOnly = true)
+    public boolean exists(String username) {
+        return !em.createNamedQuery("Member.existsByUsername", Long.class)
+                .setParameter("username",username)
+                .setHint(QueryHints.CACHEABLE, true) //쿼리 캐시. member 테이블에 커밋이 일어나면 무효화된다.
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * 전체를 forward-only 커서로 id 순서대로 흘려보낸다. (내보내기용)
+     * 스트림은 호출한 쪽 트랜잭션 안에서 소비하고 닫아야 한다.
+     * 읽기 전용으로 조회해 스냅샷을 만들지 않고, 2차 캐시도 채우지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Stream<Member> stream() {
+        return em.createNamedQuery("Member.streamAll", Member.class)
+                .setHint(QueryHints.FETCH_SIZE, 500) //한 번에 가져오는 row 수 (메모리는 이만큼만 사용)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
     }
 }
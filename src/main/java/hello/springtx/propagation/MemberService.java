@@ -1,9 +1,17 @@
 package hello.springtx.propagation;
 
+import hello.springtx.connection.RequiresConnections;
+import hello.springtx.retry.RetryScope;
+import hello.springtx.retry.RetryableTx;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -12,7 +20,13 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncLogWriter asyncLogWriter;
+
+    public static final int DEFAULT_CHUNK_SIZE = 100; //hibernate.jdbc.batch_size 와 맞춘다.
 
+    @RetryableTx
+    @RequiresConnections(2) //LogRepository.save 가 REQUIRES_NEW 로 커넥션을 하나 더 사용한다.
     @Transactional
     public void joinV1(String username) {
         Member member = new Member(username);
@@ -23,10 +37,12 @@ public class MemberService {
         log.info("== memberRepository 종료 ==");
 
         log.info("== logRepository 시작 ==");
-        logRepository.save(logMessage);
+        //로그는 REQUIRES_NEW 로 먼저 커밋된다. 회원 트랜잭션 커밋이 일시적 예외로 실패해서 재시도해도 다시 저장하지 않는다.
+        RetryScope.once("joinV1.log:" + username, () -> logRepository.save(logMessage));
         log.info("== logRepository 종료 ==");
     }
 
+    @RequiresConnections(2)
     @Transactional
     public void joinV2(String username) {
         Member member = new Member(username);
@@ -45,4 +61,82 @@ public class MemberService {
         }
         log.info("== logRepository 종료 ==");
     }
+
+    //로그를 REQUIRES_NEW 트랜잭션으로 바로 저장하지 않고 AsyncLogWriter 큐에 넣는다.
+    //커넥션을 추가로 잡지 않으며, joinV2 와 같이 로그 저장 실패가 회원 가입을 실패시키지 않는다.
+    //insert 는 커밋 시점에 실행되므로(username 중복도 커밋 시점에 실패) 커밋된 뒤에 큐에 넣는다.
+    @RequiresConnections(1)
+    @Transactional
+    public void joinV3(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("== memberRepository 시작 ==");
+        memberRepository.save(member);
+        log.info("== memberRepository 종료 ==");
+
+        asyncLogWriter.writeAfterCommit(logMessage);
+    }
+
+    /**
+     * 대량 회원 가입
+     * 청크마다 별도의 트랜잭션으로 커밋하므로 한 청크의 실패가 전체 가입을 롤백하지 않는다.
+     * 실패한 청크는 한 건씩 다시 저장해서 실패한 username 만 결과에 남긴다.
+     */
+    @RequiresConnections(1) //내부 호출(joinAll(usernames, chunkSize))에는 AOP 가 적용되지 않으므로 여기서 예약한다.
+    public BulkJoinResult joinAll(Collection<String> usernames) {
+        return joinAll(usernames, DEFAULT_CHUNK_SIZE);
+    }
+
+    @RequiresConnections(1)
+    public BulkJoinResult joinAll(Collection<String> usernames, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. chunkSize = " + chunkSize);
+        }
+        BulkJoinResult result = new BulkJoinResult();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String username : usernames) {
+            chunk.add(username);
+            if (chunk.size() == chunkSize) {
+                joinChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            joinChunk(chunk, result);
+        }
+        return result;
+    }
+
+    private void joinChunk(List<String> usernames, BulkJoinResult result) {
+        try {
+            saveChunk(usernames);
+            result.addJoined(usernames);
+        } catch (RuntimeException e) {
+            log.info("청크 저장 실패, 단건 저장으로 전환합니다. size = {}", usernames.size());
+            for (String username : usernames) {
+                try {
+                    saveChunk(List.of(username));
+                    result.addJoined(List.of(username));
+                } catch (RuntimeException ex) {
+                    log.info("회원 가입 실패. username = {}", username);
+                    result.addFailed(username, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void saveChunk(List<String> usernames) {
+        List<Member> members = new ArrayList<>(usernames.size());
+        List<Log> logMessages = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            members.add(new Member(username));
+            logMessages.add(new Log(username));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.saveAll(members);
+            logRepository.saveAll(logMessages);
+        });
+    }
 }
@@ -0,0 +1,149 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * MemberService.joinV1, joinV2 의 리액티브 버전. 요청마다 스레드를 붙잡지 않는다.
+ * 회원은 외부 트랜잭션(REQUIRED), 로그는 LogRepository.save 처럼 별도의 트랜잭션(REQUIRES_NEW)에 저장한다.
+ * id 는 JPA 와 같은 시퀀스에서 받는다. (pooled-lo 블록의 시작값을 하나 쓰므로 JPA 가 할당하는 id 와 겹치지 않는다.)
+ * insert 가 하이버네이트를 거치지 않으므로, 커밋한 뒤 member/log 테이블의 쿼리 캐시 기준 시각을 직접 갱신한다.
+ * 그래야 MemberRepository.find/exists 의 쿼리 캐시가 가입 전 결과(없음)를 계속 돌려주지 않는다.
+ * 2차 캐시의 Member 엔티티는 새로 insert 한 것뿐이라 지울 것이 없다.
+ * 커넥션은 R2DBC 커넥션 풀(r2dbc-pool)에서 빌린다. 가입 한 건이 외부 트랜잭션과 로그 트랜잭션(REQUIRES_NEW)으로
+ * 커넥션 2개를 동시에 쓰므로, 동시에 처리할 수 있는 가입 수는 max-size / 2 이다.
+ */
+@Slf4j
+@Service
+public class ReactiveMemberService {
+
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+    private static final String[] QUERY_SPACES = {"member", "log"};
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator required;
+    private final TransactionalOperator requiresNew;
+    private final SessionFactoryImplementor sessionFactory;
+
+    public ReactiveMemberService(DataSourceProperties dataSourceProperties,
+                                 EntityManagerFactory entityManagerFactory,
+                                 @Value("${springtx.reactive.pool.initial-size:2}") int initialSize,
+                                 @Value("${springtx.reactive.pool.max-size:10}") int maxSize) {
+        //ConnectionFactory 를 빈으로 등록하지 않는다. 등록하면 스프링 부트가 JDBC DataSource 자동 설정을 건너뛴다.
+        //풀 없이 쓰면 가입마다 물리 H2 세션을 2개(외부, REQUIRES_NEW)씩 새로 연다.
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory(dataSourceProperties))
+                .name("reactive-member")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .build());
+        ConnectionFactory connectionFactory = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+        //빈으로 등록하지 않는다. 등록하면 @Transactional 이 트랜잭션 매니저를 고르지 못한다.
+        R2dbcTransactionManager transactionManager = new R2dbcTransactionManager(connectionFactory);
+        this.required = TransactionalOperator.create(transactionManager);
+
+        DefaultTransactionDefinition requiresNewDefinition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNewDefinition.setName("ReactiveMemberService.saveLog");
+        this.requiresNew = TransactionalOperator.create(transactionManager, requiresNewDefinition);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    //JDBC 데이터소스와 같은 H2 데이터베이스에 연결한다. (임베디드 메모리 DB 면 같은 JVM 의 같은 이름)
+    private static ConnectionFactory connectionFactory(DataSourceProperties properties) {
+        String url = properties.determineUrl();
+        if (url == null || !url.startsWith(JDBC_H2_PREFIX)) {
+            throw new IllegalStateException("R2DBC 는 H2 데이터베이스만 지원합니다. url = " + url);
+        }
+
+        H2ConnectionConfiguration.Builder builder = H2ConnectionConfiguration.builder()
+                .url(url.substring(JDBC_H2_PREFIX.length()))
+                .username(properties.determineUsername());
+        String password = properties.determinePassword();
+        if (password != null) {
+            builder.password(password);
+        }
+        return new H2ConnectionFactory(builder.build());
+    }
+
+    //joinV1: 로그 저장이 실패하면 회원 가입도 롤백된다.
+    public Mono<Void> joinV1(String username) {
+        return saveMember(username)
+                .then(saveLog(username))
+                .as(required::transactional)
+                .then(Mono.fromRunnable(this::invalidateQueryCache));
+    }
+
+    //joinV2: 로그 저장이 실패해도 회원 가입은 커밋된다. 로그 트랜잭션만 롤백된다.
+    public Mono<Void> joinV2(String username) {
+        return saveMember(username)
+                .then(saveLog(username)
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.info("log 저장에 실패했습니다. logMessage = {}", username);
+                            log.info("정상 흐름 반환");
+                            return Mono.empty();
+                        }))
+                .as(required::transactional)
+                .then(Mono.fromRunnable(this::invalidateQueryCache));
+    }
+
+    //하이버네이트가 커밋 후에 하는 것과 같이 테이블의 변경 시각을 갱신한다. 이전에 캐시된 쿼리 결과는 다음 조회 때 버려진다.
+    private void invalidateQueryCache() {
+        try (Session session = sessionFactory.openSession()) {
+            sessionFactory.getCache().getTimestampsCache()
+                    .invalidate(QUERY_SPACES, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    private Mono<Void> saveMember(String username) {
+        return databaseClient.sql("insert into member (id, username) values (next value for member_seq, :username)")
+                .bind("username", username)
+                .then()
+                .doOnSubscribe(s -> log.info("member save"));
+    }
+
+    //LogRepository.save 와 같이 REQUIRES_NEW. "로그예외" 면 저장 후 예외를 던져서 이 트랜잭션만 롤백된다.
+    private Mono<Void> saveLog(String message) {
+        return databaseClient.sql("insert into log (id, message, created_at) values (next value for log_seq, :message, current_timestamp)")
+                .bind("message", message)
+                .then()
+                .then(Mono.defer(() -> {
+                    if (message.contains("로그예외")) {
+                        log.info("log 저장시 예외 발생");
+                        return Mono.<Void>error(new RuntimeException("예외 발생"));
+                    }
+                    return Mono.<Void>empty();
+                }))
+                .doOnSubscribe(s -> log.info("Log save"))
+                .as(requiresNew::transactional);
+    }
+}
@@ -0,0 +1,24 @@
+package hello.springtx.retention;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * springtx.log.retention.enabled=true 일 때 cron 주기로 보관 기간이 지난 로그를 정리한다.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "springtx.log.retention.enabled", havingValue = "true")
+public class LogRetentionScheduler {
+
+    private final LogRetentionService logRetentionService;
+
+    @Scheduled(cron = "${springtx.log.retention.cron:0 0 3 * * *}")
+    public void purgeExpired() {
+        logRetentionService.purgeExpired();
+    }
+}
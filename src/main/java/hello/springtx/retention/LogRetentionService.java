@@ -0,0 +1,125 @@
+package hello.springtx.retention;
+
+import hello.springtx.connection.ConnectionBudget;
+import hello.springtx.propagation.LogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 보관 기간이 지난 Log 를 chunkSize 건씩 짧은 트랜잭션으로 나누어 삭제한다.
+ * 한 번에 지우면 오래 락을 잡고 undo 가 커지므로 청크마다 커밋하고 pause 만큼 쉬어서 다른 트랜잭션에 자리를 내준다.
+ */
+@Slf4j
+@Service
+public class LogRetentionService {
+
+    private final LogRepository logRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConnectionBudget connectionBudget;
+    private final Duration retention;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    //지표 (log.retention.*)
+    private final AtomicLong purgedCount = new AtomicLong();
+    private final AtomicLong purgeCount = new AtomicLong();
+    private final AtomicLong purgeTimeMillis = new AtomicLong();
+    private volatile double lastRowsPerSecond;
+
+    public LogRetentionService(LogRepository logRepository,
+                               TransactionTemplate transactionTemplate,
+                               ConnectionBudget connectionBudget,
+                               @Value("${springtx.log.retention.period:30d}") Duration retention,
+                               @Value("${springtx.log.retention.chunk-size:500}") int chunkSize,
+                               @Value("${springtx.log.retention.pause-ms:50}") long pauseMillis) {
+        this.logRepository = logRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.connectionBudget = connectionBudget;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    public PurgeResult purgeExpired() {
+        return purgeCreatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    public PurgeResult purgeCreatedBefore(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        long deleted = 0;
+        int chunks = 0;
+
+        while (true) {
+            int count = purgeChunk(cutoff);
+            if (count == 0) {
+                break;
+            }
+            deleted += count;
+            chunks++;
+            if (count < chunkSize || !pause()) {
+                break;
+            }
+        }
+
+        PurgeResult result = new PurgeResult(deleted, chunks, System.currentTimeMillis() - start);
+        purgedCount.addAndGet(result.getDeleted());
+        purgeCount.incrementAndGet();
+        purgeTimeMillis.addAndGet(result.getElapsedMillis());
+        lastRowsPerSecond = result.getRowsPerSecond();
+        log.info("로그 정리 cutoff={} deleted={} chunks={} elapsed={}ms rows/sec={}",
+                cutoff, result.getDeleted(), result.getChunks(), result.getElapsedMillis(),
+                String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    //청크 하나 = 트랜잭션 하나. 커밋하고 커넥션을 바로 돌려준다.
+    private int purgeChunk(LocalDateTime cutoff) {
+        ConnectionBudget.Reservation reservation = connectionBudget.reserve(1, "LogRetentionService.purgeChunk");
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Long> ids = logRepository.findIdsCreatedBefore(cutoff, chunkSize);
+                return logRepository.deleteByIds(ids);
+            });
+            return count == null ? 0 : count;
+        } finally {
+            reservation.release();
+        }
+    }
+
+    public long getPurgedCount() {
+        return purgedCount.get();
+    }
+
+    public long getPurgeCount() {
+        return purgeCount.get();
+    }
+
+    public long getPurgeTimeMillis() {
+        return purgeTimeMillis.get();
+    }
+
+    public double getLastRowsPerSecond() {
+        return lastRowsPerSecond;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("로그 정리 중단");
+            return false;
+        }
+    }
+}
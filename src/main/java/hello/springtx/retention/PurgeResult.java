@@ -0,0 +1,20 @@
+package hello.springtx.retention;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 한 번의 보관 기간 정리 결과
+ */
+@Getter
+@RequiredArgsConstructor
+public class PurgeResult {
+
+    private final long deleted;
+    private final int chunks;
+    private final long elapsedMillis;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? deleted * 1000.0 : deleted * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,9 @@
+package hello.springtx.retry;
+
+/**
+ * 재시도 전에 롤백된 시도가 남긴 상태(생성된 id, 버전 등)를 지워야 하는 인자가 구현한다.
+ */
+public interface RetryAware {
+
+    void resetForRetry();
+}
@@ -0,0 +1,54 @@
+package hello.springtx.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 재시도 폭주를 막는 토큰 버킷.
+ * 첫 시도마다 ratio 만큼 토큰을 채우고 재시도마다 토큰 1개를 쓴다.
+ * 장애로 모든 호출이 실패하면 전체 호출의 ratio 비율까지만 재시도하게 된다.
+ */
+@Component
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+    private final long depositPerCall;
+    private final AtomicLong tokens;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public RetryBudget(@Value("${springtx.retry.budget.ratio:0.1}") double ratio,
+                       @Value("${springtx.retry.budget.max-tokens:20}") int maxTokens) {
+        this.maxTokens = maxTokens * SCALE;
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    void onCall() {
+        tokens.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(maxTokens, current + deposit));
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public double getAvailableTokens() {
+        return (double) tokens.get() / SCALE;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
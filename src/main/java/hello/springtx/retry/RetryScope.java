@@ -0,0 +1,43 @@
+package hello.springtx.retry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @RetryableTx 재시도 범위 안에서 한 번만 실행해야 하는 부수 효과.
+ * REQUIRES_NEW 처럼 바깥 트랜잭션보다 먼저 커밋되는 작업은 바깥 트랜잭션이 롤백되어도 남으므로,
+ * 성공한 뒤 재시도하면 다시 실행하지 않는다. 예외로 끝난 작업은 다음 시도에서 다시 실행한다.
+ * 재시도 범위 밖에서 호출하면 그냥 실행한다.
+ */
+@Slf4j
+public final class RetryScope {
+
+    private static final ThreadLocal<Set<Object>> completed = new ThreadLocal<>();
+
+    private RetryScope() {
+    }
+
+    public static void once(Object key, Runnable action) {
+        Set<Object> done = completed.get();
+        if (done == null) {
+            action.run();
+            return;
+        }
+        if (done.contains(key)) {
+            log.info("이전 시도에서 이미 커밋된 작업, 건너뜁니다. key = {}", key);
+            return;
+        }
+        action.run();
+        done.add(key);
+    }
+
+    static void begin() {
+        completed.set(new HashSet<>());
+    }
+
+    static void end() {
+        completed.remove();
+    }
+}
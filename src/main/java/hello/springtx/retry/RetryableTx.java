@@ -0,0 +1,23 @@
+package hello.springtx.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 락 타임아웃, 데드락, 낙관적 락 실패 같은 일시적인 예외가 나면 트랜잭션 전체를 다시 시작한다.
+ * 가장 바깥 트랜잭션 경계에만 적용된다. 이미 트랜잭션이 진행 중이면(참여하는 내부 호출이면) 재시도하지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryableTx {
+
+    //첫 시도 포함 최대 시도 횟수
+    int maxAttempts() default 3;
+
+    //첫 재시도 대기 시간 상한. 재시도마다 두 배로 늘리고 0 ~ 상한 사이에서 무작위로 고른다. (full jitter)
+    long backoffMillis() default 20;
+
+    long maxBackoffMillis() default 500;
+}
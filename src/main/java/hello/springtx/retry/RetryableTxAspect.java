@@ -0,0 +1,108 @@
+package hello.springtx.retry;
+
+import hello.springtx.connection.ConnectionBudgetAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 커넥션 예약(ConnectionBudgetAspect)과 트랜잭션 AOP 보다 바깥에서 실행된다.
+ * 그래서 재시도마다 롤백이 끝나고 커넥션을 반납한 뒤, 새 트랜잭션으로 처음부터 다시 시작한다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(RetryableTxAspect.ORDER)
+public class RetryableTxAspect {
+
+    public static final int ORDER = ConnectionBudgetAspect.ORDER - 100;
+
+    //재시도 중인 호출 안에서 다시 @RetryableTx 를 만나면 중첩해서 재시도하지 않는다.
+    private static final ThreadLocal<Boolean> retrying = new ThreadLocal<>();
+
+    private final RetryBudget retryBudget;
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    public RetryableTxAspect(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    @Around("@annotation(retryableTx)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryableTx retryableTx) throws Throwable {
+        if (retrying.get() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            //참여하는 내부 호출. 재시도는 바깥 경계의 몫이다.
+            return joinPoint.proceed();
+        }
+
+        retryBudget.onCall();
+        retrying.set(Boolean.TRUE);
+        RetryScope.begin();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return joinPoint.proceed();
+                } catch (Throwable e) {
+                    if (!TransientFailures.isTransient(e)) {
+                        throw e;
+                    }
+                    if (attempt >= retryableTx.maxAttempts()) {
+                        exhaustedCount.incrementAndGet();
+                        log.info("재시도 횟수 초과 {} attempt={}", joinPoint.getSignature().toShortString(), attempt);
+                        throw e;
+                    }
+                    if (!retryBudget.tryAcquire()) {
+                        exhaustedCount.incrementAndGet();
+                        log.info("재시도 예산 소진 {} attempt={}", joinPoint.getSignature().toShortString(), attempt);
+                        throw e;
+                    }
+
+                    long backoff = backoff(retryableTx, attempt);
+                    log.info("일시적 예외로 재시도 {} attempt={} backoff={}ms cause={}",
+                            joinPoint.getSignature().toShortString(), attempt, backoff, e.toString());
+                    retryCount.incrementAndGet();
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                    resetArguments(joinPoint.getArgs());
+                }
+            }
+        } finally {
+            RetryScope.end();
+            retrying.remove();
+        }
+    }
+
+    private long backoff(RetryableTx retryableTx, int attempt) {
+        long ceiling = retryableTx.backoffMillis() << Math.min(attempt - 1, 20);
+        ceiling = Math.min(ceiling, retryableTx.maxBackoffMillis());
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void resetArguments(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof RetryAware) {
+                ((RetryAware) arg).resetForRetry();
+            }
+        }
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+}
@@ -0,0 +1,55 @@
+package hello.springtx.retry;
+
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+
+/**
+ * 다시 시도하면 성공할 수 있는 예외인지 판단한다.
+ * 스프링 예외 변환을 거쳤는지와 상관없이 cause 체인 전체를 보고, 바깥쪽(변환된) 예외부터 먼저 판단한다.
+ * 비지니스 예외(체크 예외)와 그 외 런타임 예외는 재시도하지 않는다.
+ * 커넥션 획득 실패(풀 고갈)와 쿼리 타임아웃도 재시도하지 않는다. 과부하, 폭주 쿼리에서 재시도하면 부하만 늘어난다.
+ */
+public abstract class TransientFailures {
+
+    private TransientFailures() {
+    }
+
+    public static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (isExcluded(cause)) {
+                return false;
+            }
+            if (cause instanceof TransientDataAccessException //ConcurrencyFailureException, CannotAcquireLockException ...
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException
+                    || cause instanceof LockAcquisitionException
+                    || cause instanceof StaleStateException
+                    || cause instanceof SQLTransientException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    //H2 는 락 타임아웃도 SQLTimeoutException 으로 던진다. 락 타임아웃은 바깥쪽의 변환된 예외(PessimisticLockException)에서 먼저 재시도로 판단된다.
+    private static boolean isExcluded(Throwable cause) {
+        return cause instanceof QueryTimeoutException
+                || cause instanceof javax.persistence.QueryTimeoutException
+                || cause instanceof org.hibernate.QueryTimeoutException
+                || cause instanceof SQLTransientConnectionException //HikariCP: Connection is not available, request timed out
+                || cause instanceof SQLTimeoutException;
+    }
+}
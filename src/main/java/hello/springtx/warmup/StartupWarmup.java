@@ -0,0 +1,157 @@
+package hello.springtx.warmup;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청을 받기 전에 커넥션 풀을 채우고, 조회 쿼리를 컴파일해 두고, 샘플 트랜잭션으로 JIT 를 데운다.
+ * @PostConstruct 에서는 트랜잭션이 적용되지 않으므로(InitTxTest) ApplicationReadyEvent 에서 실행한다.
+ * 스프링 부트는 ApplicationReadyEvent 리스너가 모두 끝난 다음에 ReadinessState.ACCEPTING_TRAFFIC 을 발행하므로
+ * 워밍업이 끝날 때까지 ApplicationAvailability 의 readiness 상태는 준비되지 않은 상태로 남는다.
+ * (이 애플리케이션에는 웹 서버가 없어서 HTTP readiness 프로브는 없다. 웹 스타터를 추가하면 /actuator/health/readiness 가 이 상태를 따른다.)
+ * 기본값은 꺼져 있고 운영 프로필에서 켠다.
+ */
+@Slf4j
+@Component
+public class StartupWarmup {
+
+    private static final String WARMUP = "warmup";
+
+    private final DataSource dataSource;
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager em;
+    private final boolean enabled;
+    private final int connections;
+    private final int transactions;
+
+    private volatile boolean completed;
+    private volatile long elapsedMillis;
+
+    public StartupWarmup(DataSource dataSource,
+                         MemberRepository memberRepository,
+                         LogRepository logRepository,
+                         TransactionTemplate transactionTemplate,
+                         EntityManager em,
+                         @Value("${springtx.warmup.enabled:false}") boolean enabled,
+                         @Value("${springtx.warmup.connections:${spring.datasource.hikari.maximum-pool-size:10}}") int connections,
+                         @Value("${springtx.warmup.transactions:200}") int transactions) {
+        this.dataSource = dataSource;
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.em = em;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.transactions = transactions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmup() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            int filled = fillPool();
+            precompileQueries();
+            runSampleTransactions();
+            log.info("워밍업 완료 connections={} transactions={} elapsed={}ms",
+                    filled, transactions, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            //워밍업 실패로 기동을 막지는 않는다. 첫 요청들이 느릴 뿐이다.
+            log.warn("워밍업 실패", e);
+        } finally {
+            elapsedMillis = System.currentTimeMillis() - start;
+            completed = true;
+        }
+    }
+
+    /**
+     * connections 개의 스레드가 동시에 커넥션을 하나씩 잡았다가 함께 반납한다.
+     * 한 스레드가 여러 개를 잡으면 중첩 획득(TrackingDataSource)으로 집계되므로 스레드를 나눈다.
+     */
+    private int fillPool() {
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        CountDownLatch allAcquired = new CountDownLatch(connections);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                results.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        boolean valid = connection.isValid(1); //LazyConnectionDataSourceProxy 이면 여기서 물리 커넥션을 얻는다.
+                        allAcquired.countDown();
+                        allAcquired.await(5, TimeUnit.SECONDS);
+                        return valid;
+                    }
+                }));
+            }
+
+            int filled = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get(10, TimeUnit.SECONDS)) {
+                        filled++;
+                    }
+                } catch (Exception e) {
+                    log.info("워밍업 커넥션 획득 실패 {}", e.toString());
+                }
+            }
+            return filled;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //조회 쿼리를 한 번씩 실행해서 하이버네이트 쿼리 플랜 캐시에 올린다.
+    private void precompileQueries() {
+        memberRepository.find(WARMUP);
+        memberRepository.exists(WARMUP);
+        logRepository.find(WARMUP);
+        logRepository.exists(WARMUP);
+    }
+
+    //읽기 트랜잭션과 롤백되는 쓰기 트랜잭션을 반복해서 트랜잭션/JPA/JDBC 경로를 JIT 컴파일되게 한다. DB 에는 아무것도 남지 않는다.
+    //같은 값으로 조회하면 두 번째부터 쿼리 캐시에서 끝나서 JDBC 경로를 타지 않으므로 매번 다른 값으로 조회한다.
+    private void runSampleTransactions() {
+        for (int i = 0; i < transactions; i++) {
+            String username = WARMUP + "-" + i;
+            memberRepository.find(username);
+            logRepository.exists(username);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                memberRepository.save(new Member(username));
+                em.flush();
+                status.setRollbackOnly();
+            });
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
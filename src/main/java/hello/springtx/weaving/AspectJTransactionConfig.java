@@ -0,0 +1,40 @@
+package hello.springtx.weaving;
+
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import java.lang.reflect.Field;
+
+/**
+ * springtx.transaction.mode=aspectj 이면 트랜잭션 프록시 대신 컴파일 시점에 위빙된 AnnotationTransactionAspect 를 사용한다.
+ * 이 설정이 등록되면 스프링 부트의 프록시 방식 @EnableTransactionManagement 는 적용되지 않는다.
+ * 빌드를 -Paspectj 로 위빙해야 한다. 위빙되지 않은 클래스로 켜면 트랜잭션이 조용히 빠지므로 시작할 때 확인한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springtx.transaction.mode", havingValue = "aspectj")
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class AspectJTransactionConfig {
+
+    public AspectJTransactionConfig() {
+        if (!isWoven(MemberService.class)) {
+            throw new IllegalStateException(
+                    "springtx.transaction.mode=aspectj 는 AspectJ 위빙된 빌드에서만 사용할 수 있습니다. (./gradlew ... -Paspectj)");
+        }
+        log.info("AspectJ 위빙 트랜잭션 모드");
+    }
+
+    //ajc 는 위빙한 클래스에 ajc$ 로 시작하는 조인 포인트 필드를 추가한다.
+    public static boolean isWoven(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().startsWith("ajc$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
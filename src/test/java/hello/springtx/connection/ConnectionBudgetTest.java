@@ -0,0 +1,65 @@
+package hello.springtx.connection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class ConnectionBudgetTest {
+
+    ConnectionBudget connectionBudget = new ConnectionBudget(3, 100);
+
+    @Test
+    void nestedReservation() {
+        //외부 호출이 2개를 예약하면, 내부 호출(REQUIRES_NEW)은 예약된 커넥션을 그대로 사용한다.
+        ConnectionBudget.Reservation outer = connectionBudget.reserve(2, "outer");
+        ConnectionBudget.Reservation inner = connectionBudget.reserve(1, "inner");
+        assertThat(connectionBudget.getAvailablePermits()).isEqualTo(1);
+
+        inner.release();
+        outer.release();
+        assertThat(connectionBudget.getAvailablePermits()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectFast() {
+        //given
+        ConnectionBudget.Reservation outer = connectionBudget.reserve(2, "outer");
+
+        //when
+        //다른 스레드가 2개를 요청하면 남은 1개를 잡고 기다리지 않고, 대기 시간이 지나면 거절된다.
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> connectionBudget.reserve(2, "other"));
+
+        //then
+        assertThatThrownBy(other::join).hasCauseInstanceOf(ConnectionBudgetExceededException.class);
+        assertThat(connectionBudget.getAvailablePermits()).isEqualTo(1);
+        assertThat(connectionBudget.getRejectedCount()).isEqualTo(1);
+        outer.release();
+    }
+
+    @Test
+    void nestedWithoutWaiting() throws Exception {
+        //예약은 스레드별로 관리되므로, 다른 스레드의 예약은 같은 스레드에서 해제한다.
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            //외부 호출이 1개만 예약한 상태에서 내부 호출이 추가 커넥션을 요청하면 기다리지 않고 바로 거절한다.
+            ConnectionBudget.Reservation outer = connectionBudget.reserve(1, "outer");
+            ConnectionBudget.Reservation hold = other.submit(() -> connectionBudget.reserve(2, "other")).get();
+
+            assertThatThrownBy(() -> connectionBudget.reserve(2, "inner"))
+                    .isInstanceOf(ConnectionBudgetExceededException.class);
+            outer.release();
+            other.submit(hold::release).get();
+
+            assertThat(connectionBudget.getAvailablePermits()).isEqualTo(3);
+        } finally {
+            other.shutdown();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hello.springtx.connection;
+
+import hello.springtx.propagation.LogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.datasource.lazy-connection.enabled=true")
+class LazyConnectionTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Test
+    void acquireOnFirstStatement() throws SQLException {
+        //풀은 AsyncLogWriter, StartupWarmup 스레드와 같이 사용하므로 현재 스레드가 잡은 커넥션 수로 확인한다.
+        TrackingDataSource tracking = dataSource.unwrap(TrackingDataSource.class);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            //트랜잭션은 시작했지만 아직 SQL 을 실행하지 않았으므로 커넥션을 사용하지 않는다.
+            log.info("before statement held connections = {}", tracking.getHeldConnections());
+            assertThat(tracking.getHeldConnections()).isZero();
+
+            logRepository.exists("acquireOnFirstStatement");
+
+            log.info("after statement held connections = {}", tracking.getHeldConnections());
+            assertThat(tracking.getHeldConnections()).isEqualTo(1);
+        });
+
+        //커밋 후 바로 반환
+        assertThat(tracking.getHeldConnections()).isZero();
+    }
+}
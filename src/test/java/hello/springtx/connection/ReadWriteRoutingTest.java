@@ -0,0 +1,101 @@
+package hello.springtx.connection;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberService;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.datasource.routing.enabled=true",
+        "springtx.datasource.routing.read-your-writes-window-ms=60000",
+        "spring.datasource.hikari.connection-timeout=2500"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void readOnlyToReplica() throws SQLException {
+        //given
+        ReadWriteRoutingDataSource routingDataSource = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        long replicaCount = routingDataSource.getReplicaCount();
+
+        //when
+        //쓰기 이력이 없는 스레드에서 조회
+        CompletableFuture.runAsync(() -> logRepository.exists("readOnlyToReplica")).join();
+
+        //then
+        assertThat(routingDataSource.getReplicaCount()).isEqualTo(replicaCount + 1);
+    }
+
+    @Test
+    void readYourWrites() throws SQLException {
+        //given
+        ReadWriteRoutingDataSource routingDataSource = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        String username = "readYourWrites";
+        memberService.joinV1(username);
+        long replicaCount = routingDataSource.getReplicaCount();
+
+        //when
+        boolean exists = logRepository.exists(username);
+
+        //then
+        //회원 가입을 커밋한 스레드는 read-your-writes 시간 동안 primary 에서 조회한다.
+        assertThat(exists).isTrue();
+        assertThat(routingDataSource.getReplicaCount()).isEqualTo(replicaCount);
+    }
+
+    @Test
+    void readYourWritesAcrossThreads() throws SQLException {
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try {
+            //given
+            ReadWriteRoutingDataSource routingDataSource = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+            String username = "readYourWritesAcrossThreads";
+            CompletableFuture.runAsync(() -> ReadYourWrites.run(username, () -> memberService.joinV1(username)), first).join();
+            long replicaCount = routingDataSource.getReplicaCount();
+
+            //when
+            //같은 사용자의 다음 요청이 다른 스레드에서 처리된다.
+            boolean exists = CompletableFuture.supplyAsync(
+                    () -> ReadYourWrites.call(username, () -> logRepository.exists(username)), second).join();
+
+            //then
+            assertThat(exists).isTrue();
+            assertThat(routingDataSource.getReplicaCount()).isEqualTo(replicaCount);
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void hikariSettingsOnBothPools() throws SQLException {
+        ReadWriteRoutingDataSource routingDataSource = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+
+        //spring.datasource.hikari.* 설정이 primary, replica 풀에 모두 적용된다.
+        assertThat(routingDataSource.getResolvedDataSources().values())
+                .hasSize(2)
+                .allSatisfy(pool -> assertThat(((HikariDataSource) pool).getConnectionTimeout()).isEqualTo(2500));
+    }
+}
@@ -0,0 +1,59 @@
+package hello.springtx.export;
+
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class ExportServiceTest {
+
+    @Autowired
+    ExportService exportService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Test
+    void exportMembers_csv() {
+        //given
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        memberService.joinAll(List.of(prefix + "_a", prefix + ",b"));
+
+        //when
+        StringWriter out = new StringWriter();
+        long count = exportService.exportMembers(out, ExportFormat.CSV);
+
+        //then
+        List<String> lines = out.toString().lines().collect(Collectors.toList());
+        assertThat(lines.get(0)).isEqualTo("id,username");
+        assertThat(lines).hasSize((int) count + 1);
+        assertThat(lines).anyMatch(line -> line.endsWith("," + prefix + "_a"));
+        assertThat(lines).anyMatch(line -> line.endsWith(",\"" + prefix + ",b\"")); //콤마가 있으면 따옴표로 감싼다
+    }
+
+    @Test
+    void exportLogs_ndjson() {
+        //given
+        String username = "export_" + UUID.randomUUID().toString().substring(0, 8);
+        memberService.joinV1(username);
+
+        //when
+        StringWriter out = new StringWriter();
+        long count = exportService.exportLogs(out, ExportFormat.NDJSON);
+
+        //then
+        List<String> lines = out.toString().lines().collect(Collectors.toList());
+        assertThat(lines).hasSize((int) count);
+        assertThat(lines).anyMatch(line -> line.startsWith("{\"id\":") && line.endsWith("\"message\":\"" + username + "\"}"));
+    }
+}
@@ -0,0 +1,45 @@
+package hello.springtx.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedIdAllocatorTest {
+
+    @Test
+    void uniqueIds() {
+        //given
+        StripedIdAllocator allocator = new StripedIdAllocator(4, 50);
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicLong blockCount = new AtomicLong();
+        LongSupplier blockSource = () -> {
+            blockCount.incrementAndGet();
+            return sequence.getAndAdd(50); //pooled-lo 시퀀스 (increment by 50)
+        };
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        //when
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(allocator.next(blockSource));
+                }
+            }));
+        }
+        workers.forEach(CompletableFuture::join);
+
+        //then
+        assertThat(ids).hasSize(80_000);
+        //블록을 받을 때만 시퀀스를 호출한다. (스트라이프마다 마지막 블록은 일부만 사용)
+        assertThat(blockCount.get()).isLessThanOrEqualTo(80_000 / 50 + 4);
+    }
+}
@@ -0,0 +1,125 @@
+package hello.springtx.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * logback-spring.xml 의 운영 프로필과 같이 SQL 로거 -> SampledTraceAppender -> 출력 appender 로 연결한다.
+ */
+class SampledTraceAppenderTest {
+
+    LoggerContext context = new LoggerContext();
+    ListAppender<ILoggingEvent> output = new ListAppender<>();
+    SampledTraceAppender traceAppender = new SampledTraceAppender();
+
+    @AfterEach
+    void tearDown() {
+        traceAppender.stop();
+        context.stop();
+        TransactionTraceBuffer.configure(0.01, 500, 256);
+    }
+
+    @Test
+    void bufferUntilRollback() {
+        //given
+        Logger sql = wire(true);
+
+        //when
+        TransactionTraceBuffer.begin();
+        sql.debug("insert");
+        assertThat(output.list).isEmpty(); //트랜잭션이 끝날 때까지 모은다.
+        TransactionTraceBuffer.complete(true);
+
+        //then
+        assertThat(output.list).extracting(ILoggingEvent::getMessage).containsExactly("insert");
+    }
+
+    @Test
+    void outsideTransactionNotCarriedOver() {
+        //given
+        Logger sql = wire(true);
+
+        //when
+        sql.debug("autocommit select"); //트랜잭션 밖. 샘플링되지 않으면 바로 버린다.
+        TransactionTraceBuffer.begin();
+        sql.debug("insert");
+        TransactionTraceBuffer.complete(true);
+
+        //then
+        //트랜잭션 밖의 로그가 다음 트랜잭션에 섞이지 않는다.
+        assertThat(output.list).extracting(ILoggingEvent::getMessage).containsExactly("insert");
+    }
+
+    @Test
+    void keepTransactionHeaderOnRollback() {
+        //given
+        wire(true);
+        //트랜잭션 매니저의 로그는 애플리케이션 LoggerContext 로 남으므로 그 로거에 연결한다.
+        Logger txLogger = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(DataSourceTransactionManager.class.getName());
+        Level level = txLogger.getLevel();
+        boolean additive = txLogger.isAdditive();
+        txLogger.setLevel(Level.DEBUG);
+        txLogger.setAdditive(false);
+        txLogger.addAppender(traceAppender);
+
+        DataSourceTransactionManager jdbcTxManager = new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:trace"));
+        TransactionTemplate template = new TransactionTemplate(new TraceSamplingTransactionManager(jdbcTxManager));
+
+        //when
+        try {
+            template.executeWithoutResult(status -> status.setRollbackOnly());
+        } finally {
+            txLogger.detachAppender(traceAppender);
+            txLogger.setLevel(level);
+            txLogger.setAdditive(additive);
+        }
+
+        //then
+        //"Creating new transaction" 은 target.getTransaction 안에서 남는다. 버퍼가 그 전에 열려 있어야 롤백된 트랜잭션과 함께 남는다.
+        assertThat(output.list).extracting(ILoggingEvent::getMessage)
+                .anyMatch(message -> message.startsWith("Creating new transaction with name"))
+                .anyMatch(message -> message.startsWith("Initiating transaction rollback"));
+    }
+
+    @Test
+    void passThroughWhenDisabled() {
+        //given
+        Logger sql = wire(false);
+
+        //when
+        sql.debug("select");
+
+        //then
+        //트랜잭션 경계를 알리는 트랜잭션 매니저가 없으므로 모으지 않고 바로 넘긴다.
+        assertThat(output.list).extracting(ILoggingEvent::getMessage).containsExactly("select");
+    }
+
+    private Logger wire(boolean enabled) {
+        TransactionTraceBuffer.configure(0, 60_000, 16); //샘플링 없음, 느린 트랜잭션 없음
+
+        output.setContext(context);
+        output.start();
+
+        traceAppender.setContext(context);
+        traceAppender.setEnabled(enabled);
+        traceAppender.addAppender(output);
+        traceAppender.start();
+
+        Logger sql = context.getLogger("org.hibernate.SQL");
+        sql.setLevel(Level.DEBUG);
+        sql.setAdditive(false);
+        sql.addAppender(traceAppender);
+        return sql;
+    }
+}
@@ -0,0 +1,84 @@
+package hello.springtx.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionTraceBufferTest {
+
+    List<ILoggingEvent> flushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TransactionTraceBuffer.setSink(flushed::addAll);
+        TransactionTraceBuffer.configure(0, 60_000, 3); //샘플링 없음, 느린 트랜잭션 없음
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionTraceBuffer.setSink(null);
+        TransactionTraceBuffer.configure(0.01, 500, 256);
+    }
+
+    @Test
+    void discardCommitted() {
+        TransactionTraceBuffer.begin();
+        TransactionTraceBuffer.add(event("select"));
+        TransactionTraceBuffer.complete(false);
+
+        assertThat(flushed).isEmpty();
+        assertThat(TransactionTraceBuffer.buffered()).isEmpty();
+    }
+
+    @Test
+    void keepRolledBack() {
+        TransactionTraceBuffer.begin();
+        TransactionTraceBuffer.add(event("insert"));
+        TransactionTraceBuffer.complete(true);
+
+        assertThat(flushed).extracting(ILoggingEvent::getMessage).containsExactly("insert");
+    }
+
+    @Test
+    void keepOuterWhenInnerRolledBack() {
+        //외부 트랜잭션 안에서 REQUIRES_NEW 내부 트랜잭션이 롤백되고 외부는 커밋
+        TransactionTraceBuffer.begin();
+        TransactionTraceBuffer.add(event("outer"));
+        TransactionTraceBuffer.begin();
+        TransactionTraceBuffer.add(event("inner"));
+        TransactionTraceBuffer.complete(true);
+        assertThat(flushed).isEmpty(); //가장 바깥 트랜잭션이 끝날 때 결정한다.
+        TransactionTraceBuffer.complete(false);
+
+        assertThat(flushed).extracting(ILoggingEvent::getMessage).containsExactly("outer", "inner");
+    }
+
+    @Test
+    void keepSampledAndBounded() {
+        TransactionTraceBuffer.configure(1, 60_000, 3); //모두 샘플링, 버퍼 3개
+
+        TransactionTraceBuffer.begin();
+        for (int i = 0; i < 5; i++) {
+            TransactionTraceBuffer.add(event("sql" + i));
+        }
+        TransactionTraceBuffer.complete(false);
+
+        assertThat(flushed).extracting(ILoggingEvent::getMessage).containsExactly("sql2", "sql3", "sql4");
+    }
+
+    private ILoggingEvent event(String message) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLevel(Level.DEBUG);
+        event.setLoggerName("org.hibernate.SQL");
+        event.setMessage(message);
+        return event;
+    }
+}
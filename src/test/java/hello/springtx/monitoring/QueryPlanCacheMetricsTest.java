@@ -0,0 +1,35 @@
+package hello.springtx.monitoring;
+
+import hello.springtx.propagation.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class QueryPlanCacheMetricsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void planCacheHit() {
+        //given
+        memberRepository.exists("planCacheHit");
+        double hits = meterRegistry.get("hibernate.query.plan.cache.hits").functionCounter().count();
+
+        //when
+        memberRepository.exists("planCacheHit");
+
+        //then
+        assertThat(meterRegistry.get("hibernate.query.plan.cache.hits").functionCounter().count()).isGreaterThan(hits);
+        assertThat(meterRegistry.get("hibernate.query.plan.cache.hit.ratio").gauge().value()).isGreaterThan(0);
+        assertThat(meterRegistry.get("hibernate.query.plan.cache.max.size").gauge().value()).isEqualTo(2048);
+        assertThat(meterRegistry.get("hibernate.query.executed.distinct").gauge().value()).isGreaterThanOrEqualTo(1);
+    }
+}
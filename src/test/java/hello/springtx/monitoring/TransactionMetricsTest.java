@@ -0,0 +1,102 @@
+package hello.springtx.monitoring;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumingThat;
+
+@Slf4j
+@SpringBootTest
+class TransactionMetricsTest {
+
+    static final String ORDER_METHOD = "hello.springtx.order.OrderService.order";
+    static final String JOIN_METHOD = "hello.springtx.propagation.MemberService.joinV3";
+
+    //tx.outcome 은 프록시 모드에서만 기록한다. (TransactionOutcomeAspect)
+    static final boolean PROXY_MODE = !"aspectj".equals(System.getProperty("springtx.transaction.mode"));
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void runtimeException() {
+        //given
+        Order order = new Order();
+        order.setUsername("예외");
+
+        //when
+        assertThatThrownBy(() -> orderService.order(order))
+                .isInstanceOf(RuntimeException.class);
+
+        //then
+        assumingThat(PROXY_MODE, () -> assertThat(meterRegistry.get("tx.outcome")
+                .tags("method", ORDER_METHOD, "type", "runtime", "decision", "rollback")
+                .counter().count()).isGreaterThanOrEqualTo(1));
+        assertThat(meterRegistry.get("tx.rollback")
+                .tags("method", ORDER_METHOD, "physical", "true")
+                .timer().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void bizException() {
+        //given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        //when
+        assertThatThrownBy(() -> orderService.order(order))
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        //then
+        //체크 예외는 커밋된다.
+        assumingThat(PROXY_MODE, () -> assertThat(meterRegistry.get("tx.outcome")
+                .tags("method", ORDER_METHOD, "exception", "NotEnoughMoneyException", "type", "checked", "decision", "commit")
+                .counter().count()).isGreaterThanOrEqualTo(1));
+        assertThat(meterRegistry.get("tx.commit")
+                .tags("method", ORDER_METHOD, "physical", "true", "result", "commit")
+                .timer().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("tx.begin").tags("method", ORDER_METHOD).timer().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void commitFailure() {
+        //given
+        String username = "txMetrics_commitFailure";
+        memberService.joinV3(username);
+        double committed = outcome(JOIN_METHOD, "commit");
+        double rolledBack = outcome(JOIN_METHOD, "rollback");
+
+        //when
+        //username 중복은 커밋 시점 flush 에서 실패한다. 메서드 본문은 정상 반환한다.
+        assertThatThrownBy(() -> memberService.joinV3(username))
+                .isInstanceOf(DataAccessException.class);
+
+        //then
+        assumingThat(PROXY_MODE, () -> {
+            assertThat(outcome(JOIN_METHOD, "rollback")).isEqualTo(rolledBack + 1);
+            assertThat(outcome(JOIN_METHOD, "commit")).isEqualTo(committed);
+        });
+    }
+
+    private double outcome(String method, String decision) {
+        return meterRegistry.find("tx.outcome").tags("method", method, "decision", decision)
+                .counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,81 @@
+package hello.springtx.monitoring;
+
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.tx.watchdog.threshold-ms=100",
+        "springtx.tx.watchdog.scan-interval-ms=50"
+})
+class TransactionWatchdogTest {
+
+    @Autowired
+    SlowService slowService;
+
+    @Autowired
+    TransactionWatchdog transactionWatchdog;
+
+    @Test
+    void flagLongRunning() throws InterruptedException {
+        //given
+        long flagged = transactionWatchdog.getFlaggedCount();
+
+        //when
+        slowService.hold(400);
+
+        //then
+        assertThat(transactionWatchdog.getFlaggedCount()).isGreaterThan(flagged);
+        assertThat(transactionWatchdog.getLastFlagged())
+                .contains("SlowService.hold")
+                .contains("Thread.sleep");
+        assertThat(transactionWatchdog.getActiveCount()).isZero();
+    }
+
+    @Test
+    void statementAfterTimeout() {
+        //when
+        //타임아웃 1초가 지난 뒤에 실행하는 쿼리는 실패한다.
+        assertThatThrownBy(() -> slowService.queryAfter(1100))
+                .isInstanceOf(TransactionTimedOutException.class);
+    }
+
+    @TestConfiguration
+    static class WatchdogTestConfig {
+
+        @Bean
+        SlowService slowService(MemberRepository memberRepository) {
+            return new SlowService(memberRepository);
+        }
+    }
+
+    static class SlowService {
+
+        private final MemberRepository memberRepository;
+
+        SlowService(MemberRepository memberRepository) {
+            this.memberRepository = memberRepository;
+        }
+
+        @Transactional
+        public void hold(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+
+        @Transactional(timeout = 1)
+        public boolean queryAfter(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return memberRepository.exists("statementAfterTimeout");
+        }
+    }
+}
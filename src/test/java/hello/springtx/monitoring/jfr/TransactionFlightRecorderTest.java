@@ -0,0 +1,74 @@
+package hello.springtx.monitoring.jfr;
+
+import hello.springtx.propagation.MemberService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class TransactionFlightRecorderTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Test
+    void requiresNewSuspendsOuter() throws IOException {
+        //given
+        String username = "jfr_requiresNew";
+        List<RecordedEvent> events;
+
+        //when
+        try (Recording recording = new Recording()) {
+            recording.enable("hello.springtx.TransactionBegin");
+            recording.enable("hello.springtx.TransactionParticipate");
+            recording.enable("hello.springtx.TransactionSuspend");
+            recording.enable("hello.springtx.TransactionCommit");
+            recording.start();
+            memberService.joinV1(username); //회원 트랜잭션 안에서 LogRepository.save 가 REQUIRES_NEW
+            recording.stop();
+
+            Path file = Files.createTempFile("springtx", ".jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getThread() != null && event.getThread().getJavaThreadId() == Thread.currentThread().getId())
+                    .collect(Collectors.toList());
+            Files.delete(file);
+        }
+
+        //then
+        events.forEach(event -> log.info("{} {} tx={} parent={}", event.getEventType().getName(),
+                event.getString("method"), event.getLong("transactionId"), event.getLong("parentTransactionId")));
+
+        RecordedEvent outer = find(events, "hello.springtx.TransactionBegin", "hello.springtx.propagation.MemberService.joinV1");
+        RecordedEvent inner = find(events, "hello.springtx.TransactionBegin", "hello.springtx.propagation.LogRepository.save");
+        RecordedEvent suspended = find(events, "hello.springtx.TransactionSuspend", "hello.springtx.propagation.MemberService.joinV1");
+        RecordedEvent participate = find(events, "hello.springtx.TransactionParticipate", "hello.springtx.propagation.MemberRepository.save");
+
+        assertThat(inner.getLong("parentTransactionId")).isEqualTo(outer.getLong("transactionId"));
+        assertThat(inner.getString("propagation")).isEqualTo("REQUIRES_NEW");
+        assertThat(suspended.getLong("transactionId")).isEqualTo(outer.getLong("transactionId"));
+        assertThat(participate.getLong("transactionId")).isEqualTo(outer.getLong("transactionId"));
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("hello.springtx.TransactionCommit")
+                && event.getLong("transactionId") == inner.getLong("transactionId"));
+    }
+
+    private RecordedEvent find(List<RecordedEvent> events, String type, String method) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(type) && method.equals(event.getString("method")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(type + " " + method + " 이벤트가 없습니다."));
+    }
+}
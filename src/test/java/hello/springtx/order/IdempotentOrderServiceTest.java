@@ -0,0 +1,89 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest
+class IdempotentOrderServiceTest {
+
+    @Autowired
+    IdempotentOrderService idempotentOrderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void duplicate() throws NotEnoughMoneyException {
+        //given
+        Order first = idempotentOrderService.order(newOrder("정상", "duplicate"));
+        long count = orderRepository.count();
+
+        //when
+        Order retry = idempotentOrderService.order(newOrder("정상", "duplicate"));
+
+        //then
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(retry.getPayStatus()).isEqualTo("완료");
+        assertThat(orderRepository.count()).isEqualTo(count);
+    }
+
+    @Test
+    void replayNotShared() throws NotEnoughMoneyException {
+        //given
+        Order first = idempotentOrderService.order(newOrder("정상", "replayNotShared"));
+        first.setPayStatus("취소"); //처음 호출한 쪽이 돌려받은 객체를 바꾼다.
+
+        //when
+        Order retry = idempotentOrderService.order(newOrder("정상", "replayNotShared"));
+
+        //then
+        //중복 요청은 처음 결과로 새로 채운 객체를 받는다.
+        assertThat(retry).isNotSameAs(first);
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(retry.getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void duplicateBizException() {
+        //given
+        assertThatThrownBy(() -> idempotentOrderService.order(newOrder("잔고부족", "duplicateBizException")))
+                .isInstanceOf(NotEnoughMoneyException.class);
+        long count = orderRepository.count();
+
+        //when
+        //처음 요청과 같이 잔고부족 예외를 받고, 새 주문은 저장되지 않는다.
+        assertThatThrownBy(() -> idempotentOrderService.order(newOrder("잔고부족", "duplicateBizException")))
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        //then
+        assertThat(orderRepository.count()).isEqualTo(count);
+        assertThat(orderRepository.findByIdempotencyKey("duplicateBizException").get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void retryAfterRollback() throws NotEnoughMoneyException {
+        //given
+        //런타임 예외로 롤백된 주문은 기억하지 않는다.
+        assertThatThrownBy(() -> idempotentOrderService.order(newOrder("예외", "retryAfterRollback")))
+                .isInstanceOf(RuntimeException.class);
+
+        //when
+        Order retry = idempotentOrderService.order(newOrder("정상", "retryAfterRollback"));
+
+        //then
+        assertThat(orderRepository.findByIdempotencyKey("retryAfterRollback").get().getId()).isEqualTo(retry.getId());
+    }
+
+    private Order newOrder(String username, String idempotencyKey) {
+        Order order = new Order();
+        order.setUsername(username);
+        order.setIdempotencyKey(idempotencyKey);
+        return order;
+    }
+}
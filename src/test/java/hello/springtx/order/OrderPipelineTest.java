@@ -0,0 +1,57 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class OrderPipelineTest {
+
+    @Autowired
+    OrderPipeline orderPipeline;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void submit() {
+        //given
+        List<Order> orders = Stream.of("정상", "예외", "잔고부족", "정상")
+                .map(username -> {
+                    Order order = new Order();
+                    order.setUsername(username);
+                    return order;
+                })
+                .collect(Collectors.toList());
+
+        //when
+        List<OrderResult> results = orderPipeline.submit(orders.stream()).stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+        //then
+        assertThat(results).extracting(OrderResult::getStatus).containsExactly(
+                OrderResult.Status.COMPLETED,
+                OrderResult.Status.ROLLED_BACK,
+                OrderResult.Status.WAITING,
+                OrderResult.Status.COMPLETED);
+
+        assertThat(orderRepository.findById(orders.get(0).getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(orderRepository.findById(orders.get(1).getId())).isEmpty();
+        assertThat(orderRepository.findById(orders.get(2).getId()).get().getPayStatus()).isEqualTo("대기");
+        assertThat(orderRepository.findById(orders.get(3).getId()).get().getPayStatus()).isEqualTo("완료");
+
+        //flow
+        //4건이 하나의 그룹 트랜잭션으로 처리되다가 "예외" 주문에서 런타임 예외가 발생해 그룹 전체가 롤백된다.
+        //이후 주문 하나씩 각자의 트랜잭션으로 다시 처리해서 "예외" 주문만 롤백되고 "잔고부족" 주문은 대기 상태로 커밋된다.
+    }
+}
@@ -5,8 +5,12 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +25,9 @@ class OrderServiceTest {
     @Autowired
     OrderRepository orderRepository;
 
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
     @Test
     void complete() throws NotEnoughMoneyException {
         //given
@@ -67,4 +74,77 @@ class OrderServiceTest {
         Order findOrder = orderRepository.findById(order.getId()).get();
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
     }
-}
\ No newline at end of file
+
+    @Test
+    void settle() throws NotEnoughMoneyException {
+        //given
+        Order waiting = new Order();
+        waiting.setUsername("잔고부족");
+        assertThatThrownBy(() -> orderService.order(waiting))
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        Order completed = new Order();
+        completed.setUsername("정상");
+        orderService.order(completed);
+
+        //when
+        int updated = orderService.settle(List.of(waiting.getId(), completed.getId(), -1L));
+
+        //then
+        assertThat(updated).isEqualTo(1);
+        assertThat(orderRepository.findById(waiting.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(orderRepository.findById(completed.getId()).get().getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void optimisticLock() throws NotEnoughMoneyException {
+        //given
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        //when
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            Order stale = orderRepository.findById(order.getId()).get();
+            //다른 트랜잭션이 먼저 바꾸고 커밋한다.
+            CompletableFuture.runAsync(() -> orderService.changePayStatus(order.getId(), "대기")).join();
+            stale.setPayStatus("취소");
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        //then
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+        assertThat(findOrder.getVersion()).isEqualTo(order.getVersion() + 1);
+    }
+
+    @Test
+    void changePayStatusWithLock() throws NotEnoughMoneyException {
+        //given
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        //when
+        orderService.changePayStatusWithLock(order.getId(), "대기");
+
+        //then
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void changePayStatusWithoutRetry() throws NotEnoughMoneyException {
+        //given
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        //when
+        orderService.changePayStatusWithoutRetry(order.getId(), "대기");
+
+        //then
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+        assertThat(findOrder.getVersion()).isEqualTo(order.getVersion() + 1);
+    }
+}
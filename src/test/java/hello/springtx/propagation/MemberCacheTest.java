@@ -0,0 +1,58 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class MemberCacheTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    void queryCacheHit() {
+        //given
+        String username = "queryCacheHit";
+        memberService.joinV1(username);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        memberRepository.find(username);
+        long hitCount = statistics.getQueryCacheHitCount();
+        memberRepository.find(username);
+
+        //then
+        log.info("query cache hit = {}, miss = {}", statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount());
+        log.info("2nd level cache hit = {}, miss = {}", statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount());
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThan(hitCount);
+    }
+
+    @Test
+    void invalidateOnCommit() {
+        //given
+        String username = "invalidateOnCommit";
+        assertThat(memberRepository.find(username)).isEmpty(); //빈 결과가 쿼리 캐시에 저장된다.
+
+        //when
+        memberService.joinV1(username);
+
+        //then
+        //커밋 시점에 member 테이블의 변경 시각이 갱신되어 이전 쿼리 캐시는 사용되지 않는다.
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+}
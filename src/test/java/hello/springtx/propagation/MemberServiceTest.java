@@ -4,8 +4,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
 import org.springframework.transaction.UnexpectedRollbackException;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -22,6 +27,12 @@ class MemberServiceTest {
     @Autowired
     LogRepository logRepository;
 
+    @Autowired
+    AsyncLogWriter asyncLogWriter;
+
+    @Autowired
+    EntityManager em;
+
     /**
      * memberService    @Transactional : off
      * memberRepository @Transactional : on
@@ -213,4 +224,128 @@ class MemberServiceTest {
         //따라서 성능이 중요한 곳에서는 이런 부분을 주의해서 사용해야 한다.
         //REQUIRES_NEW 를 사용하지 않고 문제를 해결할 수 있는 단순한 방법이 있다면, 그 방법을 선택하는 것이 더 좋다.
     }
-}
\ No newline at end of file
+
+    /**
+     * memberService    joinAll : 청크 단위 트랜잭션
+     * logRepository    saveAll : 청크 중간에 exception
+     */
+    @Test
+    void joinAll() {
+        //given
+        List<String> usernames = List.of("joinAll_1", "joinAll_2", "로그예외_joinAll_3", "joinAll_4", "joinAll_5");
+
+        //when
+        BulkJoinResult result = memberService.joinAll(usernames, 2);
+
+        //then
+        assertThat(result.getJoined()).containsExactly("joinAll_1", "joinAll_2", "joinAll_4", "joinAll_5");
+        assertThat(result.getFailed()).containsOnlyKeys("로그예외_joinAll_3");
+        assertTrue(memberRepository.find("joinAll_4").isPresent());
+        assertTrue(logRepository.find("joinAll_4").isPresent());
+        assertTrue(memberRepository.find("로그예외_joinAll_3").isEmpty());
+        assertTrue(logRepository.find("로그예외_joinAll_3").isEmpty());
+
+        //flow
+        //청크 [3, 4] 는 로그 저장 중 예외로 청크 트랜잭션 전체가 롤백된다.
+        //이후 한 건씩 다시 저장하면서 실패한 username 만 결과에 남기고, 나머지는 정상 커밋된다.
+    }
+
+    @Test
+    void joinAll_invalidChunkSize() {
+        assertThatThrownBy(() -> memberService.joinAll(List.of("joinAll_invalidChunkSize"), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("chunkSize");
+        assertThatThrownBy(() -> memberService.joinAll(List.of("joinAll_invalidChunkSize"), -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertTrue(memberRepository.find("joinAll_invalidChunkSize").isEmpty());
+    }
+
+    /**
+     * member.username unique index
+     */
+    @Test
+    void joinAll_duplicateUsername() {
+        //given
+        String username = "joinAll_duplicate";
+        memberService.joinV1(username);
+
+        //when
+        BulkJoinResult result = memberService.joinAll(List.of(username, "joinAll_unique"));
+
+        //then
+        assertThat(result.getJoined()).containsExactly("joinAll_unique");
+        assertThat(result.getFailed()).containsOnlyKeys(username);
+        assertTrue(memberRepository.exists("joinAll_unique"));
+        assertTrue(logRepository.exists("joinAll_unique"));
+        assertTrue(memberRepository.find(username).isPresent());
+    }
+
+    /**
+     * memberService    @Transactional : on
+     * memberRepository @Transactional : on
+     * asyncLogWriter   배치 트랜잭션
+     */
+    @Test
+    void asyncLog_success() {
+        //given
+        String username = "asyncLog_success";
+
+        //when
+        memberService.joinV3(username);
+        assertTrue(asyncLogWriter.flush(5000));
+
+        //then
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * memberService    @Transactional : on
+     * memberRepository @Transactional : on
+     * asyncLogWriter   배치 트랜잭션 exception
+     */
+    @Test
+    void asyncLog_fail() {
+        //given
+        String username = "로그예외_asyncLog_fail";
+
+        //when
+        memberService.joinV3(username);
+        assertTrue(asyncLogWriter.flush(5000));
+
+        //then
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+
+        //flow
+        //로그는 회원 가입 트랜잭션과 관계없이 백그라운드 스레드의 배치 트랜잭션으로 저장된다.
+        //배치 저장이 실패하면 한 건씩 다시 저장하고, 실패한 로그만 버린다. 회원 가입은 joinV2 와 같이 정상 커밋된다.
+    }
+
+    /**
+     * memberService    @Transactional : on (커밋 시점에 username 중복으로 실패)
+     * asyncLogWriter   커밋된 뒤에만 큐에 넣는다.
+     */
+    @Test
+    void asyncLog_duplicateUsername() {
+        //given
+        String username = "asyncLog_duplicateUsername";
+        memberService.joinV3(username);
+        assertTrue(asyncLogWriter.flush(5000));
+
+        //when
+        assertThatThrownBy(() -> memberService.joinV3(username))
+                .isInstanceOf(DataAccessException.class);
+        assertTrue(asyncLogWriter.flush(5000));
+
+        //then
+        //롤백된 두 번째 가입의 로그는 큐에 들어가지 않는다.
+        assertThat(countLogs(username)).isEqualTo(1);
+    }
+
+    private long countLogs(String message) {
+        return em.createQuery("select count(l) from Log l where l.message = :message", Long.class)
+                .setParameter("message", message)
+                .getSingleResult();
+    }
+}
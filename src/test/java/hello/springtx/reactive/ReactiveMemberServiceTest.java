@@ -0,0 +1,102 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import io.r2dbc.pool.PoolMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest
+class ReactiveMemberServiceTest {
+
+    @Autowired
+    ReactiveMemberService reactiveMemberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    LogRepository logRepository;
+
+    /**
+     * memberService        @Transactional:ON
+     * memberRepository     @Transactional:ON
+     * logRepository        @Transactional:ON (REQUIRES_NEW)
+     */
+    @Test
+    void joinV1_success() {
+        //given
+        String username = "reactive_joinV1_success";
+
+        //when
+        reactiveMemberService.joinV1(username).block();
+
+        //then: 모든 데이터가 정상 저장된다.
+        assertThat(memberRepository.exists(username)).isTrue();
+        assertThat(logRepository.exists(username)).isTrue();
+    }
+
+    @Test
+    void joinV1_logFail() {
+        //given
+        String username = "로그예외_reactive_joinV1";
+
+        //when
+        assertThatThrownBy(() -> reactiveMemberService.joinV1(username).block())
+                .isInstanceOf(RuntimeException.class);
+
+        //then: 로그 트랜잭션과 회원 트랜잭션 모두 롤백된다.
+        assertThat(memberRepository.exists(username)).isFalse();
+        assertThat(logRepository.exists(username)).isFalse();
+    }
+
+    @Test
+    void joinV2_logFail() {
+        //given
+        String username = "로그예외_reactive_joinV2";
+
+        //when
+        reactiveMemberService.joinV2(username).block();
+
+        //then: member 저장, log 롤백
+        assertThat(memberRepository.exists(username)).isTrue();
+        assertThat(logRepository.exists(username)).isFalse();
+    }
+
+    @Test
+    void queryCacheAfterReactiveJoin() {
+        //given
+        String username = "reactive_queryCache";
+        assertThat(memberRepository.exists(username)).isFalse(); //쿼리 캐시에 "없음" 이 저장된다.
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        //when
+        reactiveMemberService.joinV1(username).block();
+
+        //then
+        //R2DBC insert 는 하이버네이트를 거치지 않지만 커밋 후 쿼리 캐시 기준 시각을 갱신하므로 새로 조회한다.
+        assertThat(memberRepository.exists(username)).isTrue();
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void connectionPoolReused() {
+        //given
+        reactiveMemberService.joinV1("reactive_pool_1").block();
+
+        //when
+        reactiveMemberService.joinV1("reactive_pool_2").block();
+
+        //then
+        //가입마다 물리 세션을 새로 열지 않고 풀에 돌려받은 커넥션(외부 + REQUIRES_NEW, 2개)을 다시 쓴다.
+        PoolMetrics metrics = reactiveMemberService.getConnectionPool().getMetrics().orElseThrow();
+        assertThat(metrics.acquiredSize()).isZero();
+        assertThat(metrics.allocatedSize()).isLessThanOrEqualTo(2);
+    }
+}
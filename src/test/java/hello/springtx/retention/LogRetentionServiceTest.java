@@ -0,0 +1,72 @@
+package hello.springtx.retention;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.log.retention.chunk-size=3",
+        "springtx.log.retention.pause-ms=0"
+})
+class LogRetentionServiceTest {
+
+    @Autowired
+    LogRetentionService logRetentionService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    LogRepository logRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void purgeInChunks() {
+        //given
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            usernames.add("retention_" + i);
+        }
+        memberService.joinAll(usernames);
+        double purged = meterRegistry.get("log.retention.purged").functionCounter().count();
+        double runs = meterRegistry.get("log.retention.duration").functionTimer().count();
+
+        //when
+        PurgeResult result = logRetentionService.purgeCreatedBefore(LocalDateTime.now().plusSeconds(1));
+
+        //then
+        assertThat(result.getDeleted()).isGreaterThanOrEqualTo(10);
+        assertThat(result.getChunks()).isGreaterThanOrEqualTo(4); //청크 3건씩
+        assertThat(logRepository.exists("retention_0")).isFalse();
+        assertThat(logRepository.exists("retention_9")).isFalse();
+        assertThat(meterRegistry.get("log.retention.purged").functionCounter().count()).isEqualTo(purged + result.getDeleted());
+        assertThat(meterRegistry.get("log.retention.duration").functionTimer().count()).isEqualTo(runs + 1);
+        assertThat(meterRegistry.get("log.retention.last.rows.per.second").gauge().value()).isEqualTo(result.getRowsPerSecond());
+    }
+
+    @Test
+    void keepRecent() {
+        //given
+        memberService.joinV1("retention_recent");
+
+        //when
+        PurgeResult result = logRetentionService.purgeExpired(); //기본 보관 기간 30일
+
+        //then
+        assertThat(result.getDeleted()).isZero();
+        assertThat(logRepository.exists("retention_recent")).isTrue();
+    }
+}
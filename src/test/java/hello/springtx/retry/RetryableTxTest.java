@@ -0,0 +1,197 @@
+package hello.springtx.retry;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockTimeoutException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest
+class RetryableTxTest {
+
+    @Autowired
+    FlakyService flakyService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    FailOuterCommitOnce failOuterCommitOnce;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void reset() {
+        flakyService.calls.set(0);
+    }
+
+    @Test
+    void retryTransient() {
+        //when
+        flakyService.lockTimeout(2);
+
+        //then
+        assertThat(flakyService.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void retryExhausted() {
+        //when
+        assertThatThrownBy(() -> flakyService.lockTimeout(5))
+                .isInstanceOf(CannotAcquireLockException.class);
+
+        //then
+        assertThat(flakyService.calls.get()).isEqualTo(3); //maxAttempts
+    }
+
+    @Test
+    void noRetryForBusinessException() {
+        //when
+        assertThatThrownBy(() -> flakyService.notEnoughMoney())
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        //then
+        assertThat(flakyService.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void noRetryWhenParticipating() {
+        //when
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> flakyService.lockTimeout(1)))
+                .isInstanceOf(CannotAcquireLockException.class);
+
+        //then
+        assertThat(flakyService.calls.get()).isEqualTo(1); //재시도는 바깥 트랜잭션 경계의 몫
+    }
+
+    @Test
+    void noDuplicateRequiresNewSideEffect() {
+        //given
+        String username = "noDuplicateRequiresNewSideEffect";
+        failOuterCommitOnce.armed.set(true);
+
+        //when
+        //로그(REQUIRES_NEW)가 커밋된 뒤 회원 트랜잭션 커밋이 일시적 예외로 한 번 실패하고 재시도된다.
+        memberService.joinV1(username);
+
+        //then
+        assertThat(failOuterCommitOnce.armed.get()).isFalse();
+        assertThat(memberRepository.exists(username)).isTrue();
+        Long logs = em.createQuery("select count(l) from Log l where l.message = :message", Long.class)
+                .setParameter("message", username)
+                .getSingleResult();
+        assertThat(logs).isEqualTo(1);
+    }
+
+    @Test
+    void transientFailures() {
+        assertThat(TransientFailures.isTransient(new ObjectOptimisticLockingFailureException("Order", 1L))).isTrue();
+        assertThat(TransientFailures.isTransient(new RuntimeException(new LockTimeoutException()))).isTrue();
+        assertThat(TransientFailures.isTransient(new RuntimeException("시스템 예외"))).isFalse();
+        assertThat(TransientFailures.isTransient(new NotEnoughMoneyException("잔고가 부족합니다."))).isFalse();
+
+        //커넥션 풀 고갈, 쿼리 타임아웃은 재시도하지 않는다.
+        SQLTransientConnectionException poolExhausted = new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 30000ms.");
+        assertThat(TransientFailures.isTransient(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction", poolExhausted))).isFalse();
+        assertThat(TransientFailures.isTransient(new QueryTimeoutException("query timeout", new SQLTimeoutException("Statement was canceled")))).isFalse();
+        assertThat(TransientFailures.isTransient(new javax.persistence.QueryTimeoutException("query timeout"))).isFalse();
+        //락 타임아웃은 SQLTimeoutException 이 cause 여도 재시도한다. (H2)
+        assertThat(TransientFailures.isTransient(new PessimisticLockingFailureException("lock timeout", new SQLTimeoutException("Timeout trying to lock table")))).isTrue();
+    }
+
+    @TestConfiguration
+    static class RetryTestConfig {
+
+        @Bean
+        FlakyService flakyService() {
+            return new FlakyService();
+        }
+
+        @Bean
+        FailOuterCommitOnce failOuterCommitOnce() {
+            return new FailOuterCommitOnce();
+        }
+    }
+
+    /**
+     * LogRepository.save(REQUIRES_NEW) 가 커밋되고 바깥 트랜잭션으로 돌아온 뒤, 바깥 트랜잭션 커밋을 한 번 실패시킨다.
+     * 트랜잭션 AOP 보다 바깥에서 실행되어야 바깥 트랜잭션에 등록된다.
+     */
+    @Aspect
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    static class FailOuterCommitOnce {
+
+        final AtomicBoolean armed = new AtomicBoolean();
+
+        @AfterReturning("execution(* hello.springtx.propagation.LogRepository.save(..))")
+        public void failOuterCommit() {
+            if (!armed.compareAndSet(true, false)) {
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new CannotAcquireLockException("outer commit lock timeout");
+                }
+            });
+        }
+    }
+
+    @Slf4j
+    static class FlakyService {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @RetryableTx(backoffMillis = 1)
+        @Transactional
+        public void lockTimeout(int failures) {
+            log.info("tx active={}", TransactionSynchronizationManager.isActualTransactionActive());
+            if (calls.incrementAndGet() <= failures) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+        }
+
+        @RetryableTx(backoffMillis = 1)
+        @Transactional
+        public void notEnoughMoney() throws NotEnoughMoneyException {
+            calls.incrementAndGet();
+            throw new NotEnoughMoneyException("잔고가 부족합니다.");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package hello.springtx.warmup;
+
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "springtx.warmup.enabled=true",
+        "springtx.warmup.transactions=10"
+})
+class StartupWarmupTest {
+
+    @Autowired
+    StartupWarmup startupWarmup;
+
+    @Autowired
+    ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void warmupBeforeReady() {
+        //then
+        assertThat(startupWarmup.isCompleted()).isTrue();
+        assertThat(applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        //롤백된 샘플 트랜잭션은 흔적을 남기지 않는다.
+        assertThat(memberRepository.exists("warmup-0")).isFalse();
+    }
+}
@@ -0,0 +1,64 @@
+package hello.springtx.weaving;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * InternalCallTestV1 과 같은 내부 호출. AspectJ 위빙 모드에서는 빈을 나누지 않아도 트랜잭션이 적용된다.
+ * ./gradlew test -Paspectj 로 실행할 때만 동작한다.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "springtx.transaction.mode", matches = "aspectj")
+class InternalCallAspectJTest {
+
+    @Autowired
+    CallService service;
+
+    @Test
+    void noProxy() {
+        assertThat(AopUtils.isAopProxy(service)).isFalse();
+        assertThat(AspectJTransactionConfig.isWoven(CallService.class)).isTrue();
+    }
+
+    @Test
+    void callExternal() {
+        //external() 은 트랜잭션이 없고, 내부 호출한 internal() 은 트랜잭션이 적용된다.
+        assertThat(service.external()).isTrue();
+    }
+
+    @TestConfiguration
+    static class InternalCallAspectJTestConfig {
+
+        @Bean
+        CallService callService() {
+            return new CallService();
+        }
+    }
+
+    @Slf4j
+    static class CallService {
+
+        public boolean external() {
+            log.info("call external tx active = {}", TransactionSynchronizationManager.isActualTransactionActive());
+            return internal();
+        }
+
+        @Transactional
+        public boolean internal() {
+            boolean txActive = TransactionSynchronizationManager.isActualTransactionActive();
+            log.info("call internal tx active = {}", txActive);
+            return txActive;
+        }
+    }
+}